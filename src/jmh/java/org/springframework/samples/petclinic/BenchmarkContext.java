@@ -0,0 +1,73 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.system.DataGenerator;
+
+/**
+ * Starts the application without a web server against an embedded H2 database and
+ * adds a configurable number of generated owners, each with two pets with two visits
+ * each, to the sample data. Shared by the benchmarks that need repositories or other
+ * Spring beans.
+ */
+public final class BenchmarkContext implements AutoCloseable {
+
+	public static final int PETS_PER_OWNER = 2;
+
+	public static final int VISITS_PER_PET = 2;
+
+	private final ConfigurableApplicationContext context;
+
+	private final DataGenerator.Generated generated;
+
+	private BenchmarkContext(ConfigurableApplicationContext context, DataGenerator.Generated generated) {
+		this.context = context;
+		this.generated = generated;
+	}
+
+	/**
+	 * Start the application and generate the given number of owners.
+	 * @param owners the number of owners to add to the sample data
+	 * @return the running application, to be closed by the caller
+	 */
+	public static BenchmarkContext start(int owners) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(PetClinicApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties("spring.datasource.generate-unique-name=true", "petclinic.owner-index.enabled=false",
+						"logging.level.root=WARN")
+				.run();
+		DataGenerator generator = new DataGenerator(context.getBean(JdbcTemplate.class), "h2", 42);
+		return new BenchmarkContext(context, generator.generate(owners, PETS_PER_OWNER, VISITS_PER_PET));
+	}
+
+	public <T> T getBean(Class<T> type) {
+		return this.context.getBean(type);
+	}
+
+	public DataGenerator.Generated getGenerated() {
+		return this.generated;
+	}
+
+	@Override
+	public void close() {
+		this.context.close();
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.system.DataGenerator;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+
+/**
+ * Benchmarks the repository calls behind the owner pages against an embedded H2
+ * database with {@code owners} generated owners. Every call moves on to the next last name,
+ * owner or pet, so {@link OwnerRepository#findById(Integer)} includes the owners cache as
+ * configured for the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+	private static final Pageable FIRST_PAGE = PageRequest.of(0, 5);
+
+	@Param({ "1000", "100000" })
+	private int owners;
+
+	private BenchmarkContext context;
+
+	private DataGenerator.Generated generated;
+
+	private OwnerRepository ownerRepository;
+
+	private VisitRepository visitRepository;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		this.context = BenchmarkContext.start(this.owners);
+		this.generated = this.context.getGenerated();
+		this.ownerRepository = this.context.getBean(OwnerRepository.class);
+		this.visitRepository = this.context.getBean(VisitRepository.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Owner> findIdsByLastName() {
+		// the first page of the owner search: the ids, then the owners with their pets
+		List<String> names = DataGenerator.LAST_NAMES;
+		List<Integer> ids = this.ownerRepository.findIdsByLastName(names.get(next() % names.size()), FIRST_PAGE);
+		return ids.isEmpty() ? Collections.emptyList() : this.ownerRepository.findByIdIn(ids);
+	}
+
+	@Benchmark
+	public Owner findById() {
+		return this.ownerRepository.findById(this.generated.getFirstOwnerId() + next() % this.generated.getOwners());
+	}
+
+	@Benchmark
+	public Slice<Visit> findByPetId() {
+		return this.visitRepository.findByPetId(this.generated.getFirstPetId() + next() % this.generated.getPets(),
+				FIRST_PAGE);
+	}
+
+	@Benchmark
+	public List<Visit> findLatestByPetIdIn() {
+		// the generator gives every owner consecutive pet ids, as on the owner details page
+		int petId = this.generated.getFirstPetId() + (next() % (this.generated.getPets() / 2)) * 2;
+		return this.visitRepository.findLatestByPetIdIn(Arrays.asList(petId, petId + 1), FIRST_PAGE.getPageSize() + 1);
+	}
+
+	private int next() {
+		this.next = (this.next + 1) & Integer.MAX_VALUE;
+		return this.next;
+	}
+
+}
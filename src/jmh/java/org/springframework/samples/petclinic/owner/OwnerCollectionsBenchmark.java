@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.support.MutableSortDefinition;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.samples.petclinic.visit.Visit;
+
+/**
+ * Benchmarks the collection getters of {@link Owner} and {@link Pet} that templates call
+ * while rendering, and the pet lookup by name used when validating pet forms. The
+ * {@code sortedCopy} variants reproduce the former getters, which copied and
+ * reflectively sorted the collection on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnerCollectionsBenchmark {
+
+	@Param({ "1", "10", "100" })
+	private int pets;
+
+	@Param({ "1", "100", "1000" })
+	private int visits;
+
+	private Owner owner;
+
+	private Pet pet;
+
+	private String lastPetName;
+
+	@Setup
+	public void setup() {
+		this.owner = new Owner();
+		for (int i = 0; i < this.pets; i++) {
+			Pet pet = new Pet();
+			pet.setName("pet" + ((i * 7919) % this.pets));
+			this.owner.addPet(pet);
+		}
+		for (int i = 0; i < this.pets; i++) {
+			// saved pets, so that lookups ignoring new pets still find them
+			this.owner.getPets().get(i).setId(i + 1);
+		}
+		this.pet = this.owner.getPets().get(0);
+		this.lastPetName = this.owner.getPets().get(this.pets - 1).getName().toUpperCase();
+		LocalDate date = LocalDate.of(2020, 1, 1);
+		for (int i = 0; i < this.visits; i++) {
+			Visit visit = new Visit();
+			visit.setDate(date.plusDays((i * 7919) % this.visits));
+			this.pet.addVisit(visit);
+		}
+	}
+
+	@Benchmark
+	public List<Pet> getPets() {
+		return this.owner.getPets();
+	}
+
+	@Benchmark
+	public List<Pet> getPetsSortedCopy() {
+		List<Pet> sortedPets = new ArrayList<>(this.owner.getPetsInternal());
+		PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
+		return Collections.unmodifiableList(sortedPets);
+	}
+
+	@Benchmark
+	public Pet getPet() {
+		return this.owner.getPet(this.lastPetName);
+	}
+
+	@Benchmark
+	public Pet getPetIgnoringNew() {
+		return this.owner.getPet(this.lastPetName, true);
+	}
+
+	@Benchmark
+	public List<Visit> getVisits() {
+		return this.pet.getVisits();
+	}
+
+	@Benchmark
+	public List<Visit> getVisitsSortedCopy() {
+		List<Visit> sortedVisits = new ArrayList<>(this.pet.getVisitsInternal());
+		PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
+		return Collections.unmodifiableList(sortedVisits);
+	}
+
+}
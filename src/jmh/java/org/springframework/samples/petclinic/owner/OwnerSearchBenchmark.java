@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.BenchmarkContext;
+
+/**
+ * Benchmarks the owner search with combinations of criteria taken from generated owners,
+ * on an embedded H2 database with a million generated owners by default. With
+ * {@code planned=false} the criteria are applied in their declared order and H2 chooses
+ * the index, which shows what the probes of {@link OwnerSearchPlanner} buy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OwnerSearchBenchmark {
+
+	private static final int SAMPLES = 1000;
+
+	private static final int LIMIT = 11;
+
+	@Param({ "1000000" })
+	private int owners;
+
+	@Param({ "true", "false" })
+	private boolean planned;
+
+	private BenchmarkContext context;
+
+	private OwnerSearchPlanner planner;
+
+	private List<String[]> samples;
+
+	private int next;
+
+	@Setup
+	public void setup() {
+		this.context = BenchmarkContext.start(this.owners);
+		this.planner = this.context.getBean(OwnerSearchPlanner.class);
+		this.samples = this.context.getBean(JdbcTemplate.class).query(
+				"SELECT o.first_name, o.last_name, o.city, o.telephone, "
+						+ "(SELECT MIN(p.name) FROM pets p WHERE p.owner_id = o.id) FROM owners o "
+						+ "WHERE o.id >= ? ORDER BY o.id LIMIT " + SAMPLES,
+				(rs, row) -> new String[] { rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4),
+						rs.getString(5) },
+				this.context.getGenerated().getFirstOwnerId());
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.context.close();
+	}
+
+	@Benchmark
+	public List<Integer> telephoneAndCity() {
+		String[] sample = nextSample();
+		OwnerSearch search = new OwnerSearch();
+		search.setCity(sample[2]);
+		search.setTelephone(sample[3]);
+		return search(search);
+	}
+
+	@Benchmark
+	public List<Integer> firstNameAndCity() {
+		String[] sample = nextSample();
+		OwnerSearch search = new OwnerSearch();
+		search.setFirstName(sample[0]);
+		search.setCity(sample[2]);
+		return search(search);
+	}
+
+	@Benchmark
+	public List<Integer> lastNameAndPetName() {
+		String[] sample = nextSample();
+		OwnerSearch search = new OwnerSearch();
+		search.setLastName(sample[1]);
+		search.setPetName(sample[4]);
+		return search(search);
+	}
+
+	@Benchmark
+	public List<Integer> firstNameCityAndPetName() {
+		String[] sample = nextSample();
+		OwnerSearch search = new OwnerSearch();
+		search.setFirstName(sample[0]);
+		search.setCity(sample[2]);
+		search.setPetName(sample[4]);
+		return search(search);
+	}
+
+	private List<Integer> search(OwnerSearch search) {
+		OwnerSearchPlan plan = this.planned ? this.planner.plan(search) : OwnerSearchPlan.unplanned(search);
+		return this.planner.findIds(plan, null, LIMIT);
+	}
+
+	private String[] nextSample() {
+		this.next = (this.next + 1) % this.samples.size();
+		return this.samples.get(this.next);
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.SoftAssertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.system.DataGenerator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Replays a day at the clinic against the application over HTTP: searching owners,
+ * showing owners, adding visits and pets, and listing vets as a page and as JSON. The
+ * database is embedded H2 with generated data, so the test runs offline. It prints
+ * throughput and latency percentiles per operation and fails if an operation had errors
+ * or its 99th percentile exceeds the configured maximum.
+ * <p>
+ * Run with <code>./mvnw -P loadtest test</code>. Settings are system properties:
+ * <ul>
+ * <li><code>loadtest.owners</code>: generated owners (10000)</li>
+ * <li><code>loadtest.concurrency</code>: concurrent clients (16)</li>
+ * <li><code>loadtest.warmup</code>, <code>loadtest.duration</code>: warmup and measured
+ * period (10s, 30s)</li>
+ * <li><code>loadtest.threads</code>: <code>platform</code> or <code>virtual</code>
+ * request threads (platform), to compare the two modes on the same workload</li>
+ * <li><code>loadtest.max-p99</code>: maximum 99th percentile of every operation (250ms),
+ * <code>loadtest.max-p99.&lt;operation&gt;</code> for one operation</li>
+ * </ul>
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+		properties = { "petclinic.generator.owners=${loadtest.owners:10000}",
+				"petclinic.threads.mode=${loadtest.threads:platform}", "logging.level.root=WARN" })
+@ActiveProfiles("generate")
+class ClinicDayLoadTest {
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private RestTemplateBuilder restTemplateBuilder;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private Environment environment;
+
+	@Value("${loadtest.concurrency:16}")
+	private int concurrency;
+
+	@Value("${loadtest.warmup:10s}")
+	private Duration warmup;
+
+	@Value("${loadtest.duration:30s}")
+	private Duration duration;
+
+	@Value("${loadtest.max-p99:250ms}")
+	private Duration maxP99;
+
+	private final AtomicLong petNames = new AtomicLong();
+
+	private RestTemplate rest;
+
+	private List<Integer> ownerIds;
+
+	private List<int[]> petAndOwnerIds;
+
+	@BeforeEach
+	void setup() {
+		this.rest = this.restTemplateBuilder.rootUri("http://localhost:" + this.port).build();
+		this.ownerIds = this.jdbc.queryForList("SELECT id FROM owners", Integer.class);
+		this.petAndOwnerIds = this.jdbc.query("SELECT id, owner_id FROM pets",
+				(rs, row) -> new int[] { rs.getInt(1), rs.getInt(2) });
+	}
+
+	@Test
+	void clinicDay() throws Exception {
+		LoadTestRunner.Report report = new LoadTestRunner(this.concurrency, this.warmup, this.duration)
+				.operation("findOwners", 30, this::findOwners).operation("showOwner", 25, this::showOwner)
+				.operation("addVisit", 10, this::addVisit).operation("addPet", 5, this::addPet)
+				.operation("vetsHtml", 15, this::vetsHtml).operation("vetsJson", 15, this::vetsJson).run();
+		System.out.println(report);
+
+		SoftAssertions softly = new SoftAssertions();
+		for (LoadTestRunner.Result result : report.getResults().values()) {
+			Duration max = this.environment.getProperty("loadtest.max-p99." + result.getName(), Duration.class,
+					this.maxP99);
+			softly.assertThat(result.getErrors()).as("%s errors, last: %s", result.getName(), result.getLastError())
+					.isZero();
+			softly.assertThat(result.getPercentile(99)).as("%s p99 ms", result.getName())
+					.isLessThanOrEqualTo(max.toMillis());
+		}
+		softly.assertAll();
+	}
+
+	private void findOwners() {
+		String lastName = pick(DataGenerator.LAST_NAMES);
+		this.rest.getForObject("/owners?lastName={lastName}", String.class, lastName);
+	}
+
+	private void showOwner() {
+		this.rest.getForObject("/owners/{ownerId}", String.class, pick(this.ownerIds));
+	}
+
+	private void addVisit() {
+		int[] pet = pick(this.petAndOwnerIds);
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+		form.add("date", "2021-06-01");
+		form.add("description", "load test");
+		this.rest.postForLocation("/owners/{ownerId}/pets/{petId}/visits/new", form, pet[1], pet[0]);
+	}
+
+	private void addPet() {
+		MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+		form.add("name", "Load" + this.petNames.incrementAndGet());
+		form.add("birthDate", "2020-01-01");
+		form.add("type", "cat");
+		this.rest.postForLocation("/owners/{ownerId}/pets/new", form, pick(this.ownerIds));
+	}
+
+	private void vetsHtml() {
+		this.rest.getForObject("/vets.html", String.class);
+	}
+
+	private void vetsJson() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+		this.rest.exchange("/vets", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+	}
+
+	private static <T> T pick(List<T> values) {
+		return values.get(ThreadLocalRandom.current().nextInt(values.size()));
+	}
+
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Drives a weighted mix of operations from a fixed number of concurrent workers, each
+ * sending its next request as soon as the previous one completes. Latencies are
+ * recorded per operation in HdrHistograms after a warmup period.
+ * <p>
+ * Being a closed workload, a slow response delays the requests that would have followed
+ * it, so percentiles understate what users would see at the same offered rate. They are
+ * meant for comparing builds under the same settings, not for capacity planning.
+ */
+public class LoadTestRunner {
+
+	private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+	private final List<Operation> operations = new ArrayList<>();
+
+	private final int concurrency;
+
+	private final Duration warmup;
+
+	private final Duration duration;
+
+	private int totalWeight;
+
+	public LoadTestRunner(int concurrency, Duration warmup, Duration duration) {
+		this.concurrency = concurrency;
+		this.warmup = warmup;
+		this.duration = duration;
+	}
+
+	/**
+	 * Add an operation to the mix.
+	 * @param name the name to report the operation under
+	 * @param weight the relative frequency of the operation
+	 * @param request sends one request, throwing an exception if it fails
+	 * @return this runner
+	 */
+	public LoadTestRunner operation(String name, int weight, Request request) {
+		this.operations.add(new Operation(name, weight, request));
+		this.totalWeight += weight;
+		return this;
+	}
+
+	/**
+	 * Run the warmup and then the measured period.
+	 * @return the report of the measured period
+	 */
+	public Report run() throws InterruptedException {
+		long start = System.nanoTime();
+		long measureFrom = start + this.warmup.toNanos();
+		long end = measureFrom + this.duration.toNanos();
+		ExecutorService workers = Executors.newFixedThreadPool(this.concurrency);
+		for (int i = 0; i < this.concurrency; i++) {
+			workers.execute(() -> work(measureFrom, end));
+		}
+		workers.shutdown();
+		if (!workers.awaitTermination(this.warmup.plus(this.duration).toMillis() + 60_000, TimeUnit.MILLISECONDS)) {
+			workers.shutdownNow();
+			throw new IllegalStateException("Workers did not finish in time");
+		}
+		Map<String, Result> results = new LinkedHashMap<>();
+		for (Operation operation : this.operations) {
+			results.put(operation.name, new Result(operation.name, operation.latencies, operation.errors.sum(),
+					operation.lastError, this.duration));
+		}
+		return new Report(results);
+	}
+
+	private void work(long measureFrom, long end) {
+		long now = System.nanoTime();
+		while (now < end) {
+			Operation operation = next();
+			boolean failed = false;
+			try {
+				operation.request.send();
+			}
+			catch (Exception ex) {
+				failed = true;
+				operation.lastError = ex.toString();
+			}
+			long finished = System.nanoTime();
+			if (now >= measureFrom) {
+				if (failed) {
+					operation.errors.increment();
+				}
+				else {
+					operation.latencies.recordValue(Math.min(finished - now, HIGHEST_TRACKABLE_NANOS));
+				}
+			}
+			now = finished;
+		}
+	}
+
+	private Operation next() {
+		int value = ThreadLocalRandom.current().nextInt(this.totalWeight);
+		for (Operation operation : this.operations) {
+			value -= operation.weight;
+			if (value < 0) {
+				return operation;
+			}
+		}
+		throw new IllegalStateException("No operations");
+	}
+
+	/**
+	 * Sends one request of an operation.
+	 */
+	@FunctionalInterface
+	public interface Request {
+
+		void send() throws Exception;
+
+	}
+
+	private static final class Operation {
+
+		private final String name;
+
+		private final int weight;
+
+		private final Request request;
+
+		private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+
+		private final LongAdder errors = new LongAdder();
+
+		private volatile String lastError;
+
+		Operation(String name, int weight, Request request) {
+			this.name = name;
+			this.weight = weight;
+			this.request = request;
+		}
+
+	}
+
+	/**
+	 * The results of all operations of a run.
+	 */
+	public static final class Report {
+
+		private final Map<String, Result> results;
+
+		Report(Map<String, Result> results) {
+			this.results = Collections.unmodifiableMap(results);
+		}
+
+		public Map<String, Result> getResults() {
+			return this.results;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder report = new StringBuilder(String.format("%-16s %8s %8s %10s %9s %9s %9s %9s %9s%n",
+					"operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+			for (Result result : this.results.values()) {
+				report.append(String.format("%-16s %8d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", result.getName(),
+						result.getRequests(), result.getErrors(), result.getThroughput(), result.getPercentile(50),
+						result.getPercentile(90), result.getPercentile(99), result.getPercentile(99.9),
+						result.getMax()));
+			}
+			return report.toString();
+		}
+
+	}
+
+	/**
+	 * The results of one operation.
+	 */
+	public static final class Result {
+
+		private final String name;
+
+		private final Histogram latencies;
+
+		private final long errors;
+
+		private final String lastError;
+
+		private final Duration duration;
+
+		Result(String name, Histogram latencies, long errors, String lastError, Duration duration) {
+			this.name = name;
+			this.latencies = latencies;
+			this.errors = errors;
+			this.lastError = lastError;
+			this.duration = duration;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * The number of successful requests.
+		 */
+		public long getRequests() {
+			return this.latencies.getTotalCount();
+		}
+
+		public long getErrors() {
+			return this.errors;
+		}
+
+		/**
+		 * The last error of the operation, also from the warmup, or {@code null}.
+		 */
+		public String getLastError() {
+			return this.lastError;
+		}
+
+		/**
+		 * Successful requests per second.
+		 */
+		public double getThroughput() {
+			return getRequests() * 1000.0 / this.duration.toMillis();
+		}
+
+		/**
+		 * The latency at the given percentile, in milliseconds.
+		 */
+		public double getPercentile(double percentile) {
+			return this.latencies.getValueAtPercentile(percentile) / 1_000_000.0;
+		}
+
+		/**
+		 * The highest latency, in milliseconds.
+		 */
+		public double getMax() {
+			return this.latencies.getMaxValue() / 1_000_000.0;
+		}
+
+	}
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.StringUtils;
+
+/**
+ * Matches when the JDBC data source's database has an R2DBC driver, so that the reactive
+ * API is left out instead of failing the startup on other databases. Without
+ * <code>spring.datasource.url</code>, the database is the embedded one Spring Boot picks.
+ */
+class R2dbcDriverCondition extends SpringBootCondition {
+
+	private static final Log logger = LogFactory.getLog(R2dbcDriverCondition.class);
+
+	@Override
+	public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+		ConditionMessage.Builder message = ConditionMessage.forCondition("R2DBC driver");
+		String url = context.getEnvironment().getProperty("spring.datasource.url");
+		if (!StringUtils.hasText(url)) {
+			EmbeddedDatabaseConnection embedded = EmbeddedDatabaseConnection.get(context.getClassLoader());
+			if (embedded != EmbeddedDatabaseConnection.H2) {
+				return noDriver(message, "embedded " + embedded, metadata);
+			}
+			return ConditionOutcome.match(message.found("driver").items("embedded H2"));
+		}
+		if (!ReactiveApiConfiguration.hasDriver(url)) {
+			return noDriver(message, url, metadata);
+		}
+		return ConditionOutcome.match(message.found("driver").items(url));
+	}
+
+	private ConditionOutcome noDriver(ConditionMessage.Builder message, String database,
+			AnnotatedTypeMetadata metadata) {
+		// once for the API, not for each of its beans
+		if (metadata.isAnnotated(Configuration.class.getName())) {
+			logger.info("No R2DBC driver for " + database + ", the reactive /api endpoints are disabled");
+		}
+		return ConditionOutcome.noMatch(message.didNotFind("driver").items(database));
+	}
+
+}
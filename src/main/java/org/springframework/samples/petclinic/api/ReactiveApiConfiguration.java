@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+
+/**
+ * Gives the reactive API an R2DBC connection pool on the same database as the JDBC data
+ * source, so that it reads the tables created by the same <code>schema.sql</code>. The
+ * pool is private to {@link ReactiveClinicReader}: Spring Boot does not configure a JDBC
+ * data source once there is an R2DBC connection factory bean.
+ * <p>
+ * The API is left out with <code>petclinic.api.enabled=false</code>, and when the
+ * database has no R2DBC driver (HSQLDB, for example).
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.api.enabled", havingValue = "true", matchIfMissing = true)
+@Conditional(R2dbcDriverCondition.class)
+class ReactiveApiConfiguration {
+
+	private static final String H2_PREFIX = "jdbc:h2:";
+
+	@Bean
+	ReactiveClinicReader reactiveClinicReader(DataSourceProperties properties,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxSize) {
+		ConnectionFactory connectionFactory = createConnectionFactory(properties.determineUrl(),
+				properties.determineUsername(), properties.determinePassword());
+		return new ReactiveClinicReader(
+				new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory).maxSize(maxSize).build()));
+	}
+
+	/**
+	 * Create a connection factory for a JDBC URL. In-memory H2 databases are shared by
+	 * name within the JVM; other URLs map to R2DBC URLs by their scheme, without the JDBC
+	 * driver's query parameters.
+	 */
+	static ConnectionFactory createConnectionFactory(String jdbcUrl, String username, String password) {
+		if (jdbcUrl.startsWith(H2_PREFIX)) {
+			return new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+					.url(jdbcUrl.substring(H2_PREFIX.length())).username(username).password(password).build());
+		}
+		String url = toR2dbcUrl(jdbcUrl);
+		ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+		if (StringUtils.hasText(username)) {
+			options.option(ConnectionFactoryOptions.USER, username);
+		}
+		if (StringUtils.hasText(password)) {
+			options.option(ConnectionFactoryOptions.PASSWORD, password);
+		}
+		ConnectionFactory connectionFactory = ConnectionFactories.find(options.build());
+		if (connectionFactory == null) {
+			throw new IllegalStateException("No R2DBC driver for " + url);
+		}
+		return connectionFactory;
+	}
+
+	/**
+	 * Return whether an R2DBC driver on the classpath can connect to the database of a
+	 * JDBC URL.
+	 */
+	static boolean hasDriver(String jdbcUrl) {
+		if (jdbcUrl.startsWith(H2_PREFIX)) {
+			return true;
+		}
+		try {
+			return ConnectionFactories.supports(ConnectionFactoryOptions.parse(toR2dbcUrl(jdbcUrl)));
+		}
+		catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	private static String toR2dbcUrl(String jdbcUrl) {
+		String url = "r2dbc:" + jdbcUrl.substring("jdbc:".length());
+		return (url.indexOf('?') >= 0) ? url.substring(0, url.indexOf('?')) : url;
+	}
+
+}
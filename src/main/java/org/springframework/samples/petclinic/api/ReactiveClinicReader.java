@@ -0,0 +1,101 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import java.time.LocalDate;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+
+/**
+ * Reads owners, pets and visits through R2DBC. Rows are emitted as they are decoded and
+ * only as fast as subscribers request them. Bulk reads are ordered by id and resume after
+ * the last id a client has seen, so a poll never scans rows it already has.
+ */
+class ReactiveClinicReader implements DisposableBean {
+
+	private static final String OWNERS = "SELECT id, first_name, last_name, address, city, telephone FROM owners";
+
+	private static final String PETS = "SELECT p.id, p.name, p.birth_date, t.name AS type, p.owner_id FROM pets p"
+			+ " JOIN types t ON t.id = p.type_id";
+
+	private static final String VISITS = "SELECT id, pet_id, visit_date, description FROM visits";
+
+	private final ConnectionPool pool;
+
+	private final DatabaseClient client;
+
+	ReactiveClinicReader(ConnectionPool pool) {
+		this.pool = pool;
+		this.client = DatabaseClient.create(pool);
+	}
+
+	Flux<OwnerResource> findOwners(int afterId, Integer limit) {
+		return this.client.sql(OWNERS + " WHERE id > :afterId ORDER BY id" + limit(limit)).bind("afterId", afterId)
+				.map((row, metadata) -> owner(row)).all();
+	}
+
+	Flux<PetResource> findPets(int afterId, Integer limit) {
+		return this.client.sql(PETS + " WHERE p.id > :afterId ORDER BY p.id" + limit(limit)).bind("afterId", afterId)
+				.map((row, metadata) -> pet(row)).all();
+	}
+
+	Flux<PetResource> findPetsByOwnerId(int ownerId) {
+		return this.client.sql(PETS + " WHERE p.owner_id = :ownerId ORDER BY p.id").bind("ownerId", ownerId)
+				.map((row, metadata) -> pet(row)).all();
+	}
+
+	Flux<VisitResource> findVisits(int afterId, Integer limit) {
+		return this.client.sql(VISITS + " WHERE id > :afterId ORDER BY id" + limit(limit)).bind("afterId", afterId)
+				.map((row, metadata) -> visit(row)).all();
+	}
+
+	Flux<VisitResource> findVisitsByPetId(int petId) {
+		return this.client.sql(VISITS + " WHERE pet_id = :petId ORDER BY id").bind("petId", petId)
+				.map((row, metadata) -> visit(row)).all();
+	}
+
+	private static String limit(Integer limit) {
+		return (limit != null) ? " LIMIT " + limit : "";
+	}
+
+	private static OwnerResource owner(Row row) {
+		return new OwnerResource(row.get("id", Integer.class), row.get("first_name", String.class),
+				row.get("last_name", String.class), row.get("address", String.class), row.get("city", String.class),
+				row.get("telephone", String.class));
+	}
+
+	private static PetResource pet(Row row) {
+		return new PetResource(row.get("id", Integer.class), row.get("name", String.class),
+				row.get("birth_date", LocalDate.class), row.get("type", String.class),
+				row.get("owner_id", Integer.class));
+	}
+
+	private static VisitResource visit(Row row) {
+		return new VisitResource(row.get("id", Integer.class), row.get("pet_id", Integer.class),
+				row.get("visit_date", LocalDate.class), row.get("description", String.class));
+	}
+
+	@Override
+	public void destroy() {
+		this.pool.dispose();
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import reactor.core.publisher.Flux;
+
+/**
+ * Read-only API for integration partners that poll owners, pets and visits in bulk. The
+ * responses are newline-delimited JSON streamed from R2DBC: the request thread is
+ * released while rows are read, and the next row is only requested once the previous one
+ * has been written to the client.
+ * <p>
+ * Bulk endpoints take the last id a client has seen (<code>afterId</code>) and an
+ * optional <code>limit</code>.
+ */
+@RestController
+@ConditionalOnProperty(name = "petclinic.api.enabled", havingValue = "true", matchIfMissing = true)
+@Conditional(R2dbcDriverCondition.class)
+@RequestMapping(path = "/api", produces = MediaType.APPLICATION_NDJSON_VALUE)
+class ReactiveReadController {
+
+	private final ReactiveClinicReader reader;
+
+	ReactiveReadController(ReactiveClinicReader reader) {
+		this.reader = reader;
+	}
+
+	@GetMapping("/owners")
+	Flux<OwnerResource> owners(@RequestParam(defaultValue = "0") int afterId,
+			@RequestParam(required = false) Integer limit) {
+		return this.reader.findOwners(afterId, checkLimit(limit));
+	}
+
+	@GetMapping("/owners/{ownerId}/pets")
+	Flux<PetResource> petsOfOwner(@PathVariable int ownerId) {
+		return this.reader.findPetsByOwnerId(ownerId);
+	}
+
+	@GetMapping("/pets")
+	Flux<PetResource> pets(@RequestParam(defaultValue = "0") int afterId,
+			@RequestParam(required = false) Integer limit) {
+		return this.reader.findPets(afterId, checkLimit(limit));
+	}
+
+	@GetMapping("/pets/{petId}/visits")
+	Flux<VisitResource> visitsOfPet(@PathVariable int petId) {
+		return this.reader.findVisitsByPetId(petId);
+	}
+
+	@GetMapping("/visits")
+	Flux<VisitResource> visits(@RequestParam(defaultValue = "0") int afterId,
+			@RequestParam(required = false) Integer limit) {
+		return this.reader.findVisits(afterId, checkLimit(limit));
+	}
+
+	private static Integer checkLimit(Integer limit) {
+		if (limit != null && limit < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+		}
+		return limit;
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import java.time.LocalDate;
+
+/**
+ * A visit as served by the reactive API: the <code>visits</code> row.
+ */
+public class VisitResource {
+
+	private final Integer id;
+
+	private final Integer petId;
+
+	private final LocalDate date;
+
+	private final String description;
+
+	VisitResource(Integer id, Integer petId, LocalDate date, String description) {
+		this.id = id;
+		this.petId = petId;
+		this.date = date;
+		this.description = description;
+	}
+
+	public Integer getId() {
+		return this.id;
+	}
+
+	public Integer getPetId() {
+		return this.petId;
+	}
+
+	public LocalDate getDate() {
+		return this.date;
+	}
+
+	public String getDescription() {
+		return this.description;
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of one batch of an import: how many rows were inserted and which input
+ * lines were not.
+ */
+public class BatchReport {
+
+	private final String table;
+
+	private final int batch;
+
+	private final int imported;
+
+	private final List<RowError> errors;
+
+	BatchReport(String table, int batch, int imported, List<RowError> errors) {
+		this.table = table;
+		this.batch = batch;
+		this.imported = imported;
+		this.errors = Collections.unmodifiableList(errors);
+	}
+
+	public String getTable() {
+		return this.table;
+	}
+
+	public int getBatch() {
+		return this.batch;
+	}
+
+	public int getImported() {
+		return this.imported;
+	}
+
+	public int getFailed() {
+		return this.errors.size();
+	}
+
+	public List<RowError> getErrors() {
+		return this.errors;
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Imports owners, pets and visits from files at startup when the <code>import</code>
+ * profile is active, for example:
+ *
+ * <pre class="code">
+ * java -jar petclinic.jar --spring.profiles.active=import --petclinic.import.owners=owners.csv \
+ *     --petclinic.import.pets=pets.csv --petclinic.import.visits=visits.ndjson
+ * </pre>
+ *
+ * Progress is logged per batch, together with the lines that were not imported. A
+ * {@link BulkLoadEvent} is published once the files are imported.
+ */
+@Component
+@Profile("import")
+class BulkImportRunner implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(BulkImportRunner.class);
+
+	private final BulkImporter importer;
+
+	private final ApplicationEventPublisher events;
+
+	private final String owners;
+
+	private final String pets;
+
+	private final String visits;
+
+	BulkImportRunner(BulkImporter importer, ApplicationEventPublisher events,
+			@Value("${petclinic.import.owners:}") String owners, @Value("${petclinic.import.pets:}") String pets,
+			@Value("${petclinic.import.visits:}") String visits) {
+		this.importer = importer;
+		this.events = events;
+		this.owners = owners;
+		this.pets = pets;
+		this.visits = visits;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws IOException {
+		long start = System.nanoTime();
+		BulkImporter.Import run = this.importer.start();
+		try {
+			if (StringUtils.hasText(this.owners)) {
+				try (ImportRecords records = open(this.owners)) {
+					run.owners(records, this::log);
+				}
+			}
+			if (StringUtils.hasText(this.pets)) {
+				try (ImportRecords records = open(this.pets)) {
+					run.pets(records, this::log);
+				}
+			}
+			if (StringUtils.hasText(this.visits)) {
+				try (ImportRecords records = open(this.visits)) {
+					run.visits(records, this::log);
+				}
+			}
+		}
+		finally {
+			this.events.publishEvent(new BulkLoadEvent("import"));
+		}
+		logger.info("Import finished in " + (System.nanoTime() - start) / 1_000_000 + " ms: " + run.getSummary());
+	}
+
+	private static ImportRecords open(String file) throws IOException {
+		Path path = Paths.get(file);
+		return new ImportRecords(Files.newInputStream(path), ImportRecords.Format.of(path.getFileName().toString()));
+	}
+
+	private void log(BatchReport report) {
+		logger.info("Imported " + report.getTable() + " batch " + report.getBatch() + ": " + report.getImported()
+				+ " rows, " + report.getFailed() + " failed");
+		for (RowError error : report.getErrors()) {
+			logger.warn("Skipped " + report.getTable() + " " + error);
+		}
+	}
+
+}
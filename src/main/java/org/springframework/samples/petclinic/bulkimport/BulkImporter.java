@@ -0,0 +1,282 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.samples.petclinic.model.SearchKeys;
+import org.springframework.samples.petclinic.system.IdReservations;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Imports owners, pets and visits in JDBC batches of
+ * <code>petclinic.import.batch-size</code> rows, one transaction per batch. Records carry
+ * the ids of the system they come from: pets refer to their owner and visits to their pet
+ * by those ids, which an {@link Import} maps to the ids of the inserted rows. Owners must
+ * therefore be imported before their pets, and pets before their visits, in the same
+ * {@link Import}.
+ * <p>
+ * Ids are reserved a batch at a time with {@link IdReservations}, so that rows inserted
+ * by the application in the meantime do not collide with the batch, and the batch is
+ * inserted with explicit ids. For MySQL, add <code>rewriteBatchedStatements=true</code>
+ * to the JDBC URL for batches to be sent as multi-row inserts.
+ * <p>
+ * Records that are invalid, or refer to an owner or pet that was not imported, are
+ * reported with their line number and skipped. If the database rejects a batch, its rows
+ * are inserted one by one so that only the offending rows are skipped.
+ */
+@Component
+class BulkImporter {
+
+	private static final String INSERT_OWNER = "INSERT INTO owners (id, first_name, last_name, address, city, telephone, last_name_search, first_name_search, city_search) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_PET = "INSERT INTO pets (id, name, birth_date, type_id, owner_id, name_search) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private static final String INSERT_VISIT = "INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbc;
+
+	private final TransactionTemplate transaction;
+
+	private final String database;
+
+	private final int batchSize;
+
+	BulkImporter(JdbcTemplate jdbc, @Value("${database}") String database,
+			@Value("${petclinic.import.batch-size:1000}") int batchSize) {
+		this.jdbc = jdbc;
+		this.transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+		this.database = database;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Start an import, which maps the ids of the records it imports.
+	 */
+	Import start() {
+		return new Import();
+	}
+
+	private static String required(ImportRecords.Record record, String field, int maxLength) {
+		String value = record.get(field);
+		if (value == null) {
+			throw new IllegalArgumentException(field + " is required");
+		}
+		if (value.length() > maxLength) {
+			throw new IllegalArgumentException(field + " is longer than " + maxLength + " characters");
+		}
+		return value;
+	}
+
+	private static Date date(ImportRecords.Record record, String field) {
+		String value = required(record, field, 10);
+		try {
+			return Date.valueOf(LocalDate.parse(value));
+		}
+		catch (DateTimeParseException ex) {
+			throw new IllegalArgumentException(field + " is not a date (yyyy-MM-dd): " + value);
+		}
+	}
+
+	private static Integer sourceId(ImportRecords.Record record, String field) {
+		String value = record.get(field);
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Integer.valueOf(value);
+		}
+		catch (NumberFormatException ex) {
+			throw new IllegalArgumentException(field + " is not a number: " + value);
+		}
+	}
+
+	private static Integer reference(ImportRecords.Record record, String field, Map<Integer, Integer> ids,
+			String kind) {
+		Integer source = sourceId(record, field);
+		if (source == null) {
+			throw new IllegalArgumentException(field + " is required");
+		}
+		Integer id = ids.get(source);
+		if (id == null) {
+			throw new IllegalArgumentException(kind + " " + source + " was not imported");
+		}
+		return id;
+	}
+
+	/**
+	 * One import of related owners, pets and visits.
+	 */
+	final class Import {
+
+		private final Map<Integer, Integer> ownerIds = new HashMap<>();
+
+		private final Map<Integer, Integer> petIds = new HashMap<>();
+
+		private final Map<String, Integer> types = new HashMap<>();
+
+		private final ImportSummary summary = new ImportSummary();
+
+		private Import() {
+			BulkImporter.this.jdbc.query("SELECT id, name FROM types",
+					(RowCallbackHandler) (rs) -> this.types.put(rs.getString("name").toLowerCase(), rs.getInt("id")));
+		}
+
+		/**
+		 * Import owners with the fields <code>id</code>, <code>firstName</code>,
+		 * <code>lastName</code>, <code>address</code>, <code>city</code> and
+		 * <code>telephone</code>.
+		 */
+		void owners(Iterator<ImportRecords.Record> records, Consumer<BatchReport> progress) {
+			importRows("owners", INSERT_OWNER, records, (record) -> {
+				String telephone = required(record, "telephone", 10);
+				if (!telephone.chars().allMatch(Character::isDigit)) {
+					throw new IllegalArgumentException("telephone must be digits only");
+				}
+				String firstName = required(record, "firstName", 30);
+				String lastName = required(record, "lastName", 30);
+				String city = required(record, "city", 80);
+				return new Object[] { null, firstName, lastName, required(record, "address", 255), city, telephone,
+						SearchKeys.normalize(lastName), SearchKeys.normalize(firstName), SearchKeys.normalize(city) };
+			}, this.ownerIds, progress);
+		}
+
+		/**
+		 * Import pets with the fields <code>id</code>, <code>name</code>,
+		 * <code>birthDate</code>, <code>type</code> (the name of a pet type) and
+		 * <code>ownerId</code>.
+		 */
+		void pets(Iterator<ImportRecords.Record> records, Consumer<BatchReport> progress) {
+			importRows("pets", INSERT_PET, records, (record) -> {
+				String type = required(record, "type", 80);
+				Integer typeId = this.types.get(type.toLowerCase());
+				if (typeId == null) {
+					throw new IllegalArgumentException("unknown type: " + type);
+				}
+				String name = required(record, "name", 30);
+				return new Object[] { null, name, date(record, "birthDate"), typeId,
+						reference(record, "ownerId", this.ownerIds, "owner"), SearchKeys.normalize(name) };
+			}, this.petIds, progress);
+		}
+
+		/**
+		 * Import visits with the fields <code>id</code>, <code>petId</code>,
+		 * <code>date</code> and <code>description</code>.
+		 */
+		void visits(Iterator<ImportRecords.Record> records, Consumer<BatchReport> progress) {
+			importRows("visits", INSERT_VISIT, records,
+					(record) -> new Object[] { null, reference(record, "petId", this.petIds, "pet"),
+							date(record, "date"), required(record, "description", 255) },
+					null, progress);
+		}
+
+		ImportSummary getSummary() {
+			return this.summary;
+		}
+
+		private void importRows(String table, String sql, Iterator<ImportRecords.Record> records,
+				Function<ImportRecords.Record, Object[]> toRow, Map<Integer, Integer> ids,
+				Consumer<BatchReport> progress) {
+			List<ImportRecords.Record> batch = new ArrayList<>();
+			List<Object[]> rows = new ArrayList<>();
+			List<RowError> errors = new ArrayList<>();
+			int number = 0;
+			while (records.hasNext()) {
+				ImportRecords.Record record = records.next();
+				if (record.getError() != null) {
+					errors.add(new RowError(record.getLine(), record.getError()));
+				}
+				else {
+					try {
+						sourceId(record, "id");
+						rows.add(toRow.apply(record));
+						batch.add(record);
+					}
+					catch (IllegalArgumentException ex) {
+						errors.add(new RowError(record.getLine(), ex.getMessage()));
+					}
+				}
+				if (rows.size() + errors.size() == BulkImporter.this.batchSize || !records.hasNext()) {
+					int imported = insert(table, sql, batch, rows, ids, errors);
+					errors.sort(Comparator.comparingInt(RowError::getLine));
+					this.summary.add(table, imported, errors.size());
+					progress.accept(new BatchReport(table, ++number, imported, new ArrayList<>(errors)));
+					batch.clear();
+					rows.clear();
+					errors.clear();
+				}
+			}
+		}
+
+		private int insert(String table, String sql, List<ImportRecords.Record> batch, List<Object[]> rows,
+				Map<Integer, Integer> ids, List<RowError> errors) {
+			if (rows.isEmpty()) {
+				return 0;
+			}
+			int first = IdReservations.reserve(BulkImporter.this.jdbc, BulkImporter.this.database, table, rows.size());
+			for (int i = 0; i < rows.size(); i++) {
+				rows.get(i)[0] = first + i;
+			}
+			boolean[] inserted = new boolean[rows.size()];
+			try {
+				BulkImporter.this.transaction
+						.executeWithoutResult((status) -> BulkImporter.this.jdbc.batchUpdate(sql, rows));
+				Arrays.fill(inserted, true);
+			}
+			catch (DataAccessException ex) {
+				for (int i = 0; i < rows.size(); i++) {
+					try {
+						BulkImporter.this.jdbc.update(sql, rows.get(i));
+						inserted[i] = true;
+					}
+					catch (DataAccessException rowEx) {
+						errors.add(new RowError(batch.get(i).getLine(), rowEx.getMostSpecificCause().getMessage()));
+					}
+				}
+			}
+			int imported = 0;
+			for (int i = 0; i < rows.size(); i++) {
+				if (inserted[i]) {
+					imported++;
+					Integer source = (ids != null) ? sourceId(batch.get(i), "id") : null;
+					if (source != null) {
+						ids.put(source, (Integer) rows.get(i)[0]);
+					}
+				}
+			}
+			return imported;
+		}
+
+	}
+
+}
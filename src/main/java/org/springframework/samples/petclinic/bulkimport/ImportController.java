@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk import of owners, pets and visits uploaded as the <code>owners</code>,
+ * <code>pets</code> and <code>visits</code> parts of a multipart request, each CSV or
+ * newline-delimited JSON (by file name). The response reports progress as
+ * newline-delimited JSON: a {@link BatchReport} per batch as it is written, then the
+ * {@link ImportSummary}. Once the import is over a {@link BulkLoadEvent} is published, so
+ * that the indexes and rollups are rebuilt with the imported rows.
+ * <p>
+ * Source ids are only mapped within one request: pets can only refer to owners, and
+ * visits to pets, uploaded in the same request. Rows referring to owners or pets of an
+ * earlier import are reported as not imported, so upload related files together.
+ */
+@RestController
+class ImportController {
+
+	private final BulkImporter importer;
+
+	private final ObjectMapper mapper;
+
+	private final ApplicationEventPublisher events;
+
+	ImportController(BulkImporter importer, ObjectMapper mapper, ApplicationEventPublisher events) {
+		this.importer = importer;
+		this.mapper = mapper;
+		this.events = events;
+	}
+
+	@PostMapping(path = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+	ResponseEntity<StreamingResponseBody> importData(@RequestParam(required = false) MultipartFile owners,
+			@RequestParam(required = false) MultipartFile pets, @RequestParam(required = false) MultipartFile visits) {
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body((out) -> {
+			BulkImporter.Import run = this.importer.start();
+			Consumer<BatchReport> progress = (report) -> writeLine(out, report);
+			try {
+				try (ImportRecords records = open(owners)) {
+					run.owners(records, progress);
+				}
+				try (ImportRecords records = open(pets)) {
+					run.pets(records, progress);
+				}
+				try (ImportRecords records = open(visits)) {
+					run.visits(records, progress);
+				}
+			}
+			finally {
+				this.events.publishEvent(new BulkLoadEvent("import"));
+			}
+			writeLine(out, run.getSummary());
+		});
+	}
+
+	private static ImportRecords open(MultipartFile file) throws IOException {
+		if (file == null || file.isEmpty()) {
+			return new ImportRecords(new ByteArrayInputStream(new byte[0]), ImportRecords.Format.CSV);
+		}
+		return new ImportRecords(file.getInputStream(), ImportRecords.Format.of(file.getOriginalFilename()));
+	}
+
+	private void writeLine(OutputStream out, Object value) {
+		try {
+			out.write(this.mapper.writeValueAsBytes(value));
+			out.write('\n');
+			out.flush();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads import records one line at a time from CSV with a header row, or from
+ * newline-delimited JSON as written by the export. A line that cannot be parsed is
+ * returned as a record with an error rather than ending the import.
+ */
+class ImportRecords implements Iterator<ImportRecords.Record>, Closeable {
+
+	/**
+	 * The supported input formats.
+	 */
+	enum Format {
+
+		CSV, NDJSON;
+
+		/**
+		 * Guess the format from a file name, CSV unless it ends with <code>.ndjson</code>
+		 * or <code>.jsonl</code>.
+		 */
+		static Format of(String filename) {
+			String name = (filename != null) ? filename.toLowerCase() : "";
+			return (name.endsWith(".ndjson") || name.endsWith(".jsonl")) ? NDJSON : CSV;
+		}
+
+	}
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private final BufferedReader reader;
+
+	private final Format format;
+
+	private List<String> header;
+
+	private int lineNumber;
+
+	private Record next;
+
+	ImportRecords(InputStream in, Format format) {
+		this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		this.format = format;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (this.next == null) {
+			this.next = read();
+		}
+		return this.next != null;
+	}
+
+	@Override
+	public Record next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Record record = this.next;
+		this.next = null;
+		return record;
+	}
+
+	private Record read() {
+		try {
+			String line;
+			while ((line = this.reader.readLine()) != null) {
+				this.lineNumber++;
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				if (this.format == Format.NDJSON) {
+					return parseJson(line);
+				}
+				if (this.header == null) {
+					this.header = parseCsv(line);
+					continue;
+				}
+				return parseCsv(line, this.header);
+			}
+			return null;
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private Record parseJson(String line) {
+		try {
+			JsonNode node = mapper.readTree(line);
+			if (!node.isObject()) {
+				return new Record(this.lineNumber, "not a JSON object");
+			}
+			Map<String, String> fields = new LinkedHashMap<>();
+			node.fields().forEachRemaining((field) -> fields.put(field.getKey(),
+					field.getValue().isNull() ? null : field.getValue().asText()));
+			return new Record(this.lineNumber, fields);
+		}
+		catch (JsonProcessingException ex) {
+			return new Record(this.lineNumber, "malformed JSON: " + ex.getOriginalMessage());
+		}
+	}
+
+	private Record parseCsv(String line, List<String> header) {
+		List<String> values;
+		try {
+			values = parseCsv(line);
+		}
+		catch (IllegalArgumentException ex) {
+			return new Record(this.lineNumber, ex.getMessage());
+		}
+		if (values.size() != header.size()) {
+			return new Record(this.lineNumber, "expected " + header.size() + " columns but found " + values.size());
+		}
+		Map<String, String> fields = new LinkedHashMap<>();
+		for (int i = 0; i < header.size(); i++) {
+			fields.put(header.get(i), values.get(i));
+		}
+		return new Record(this.lineNumber, fields);
+	}
+
+	/**
+	 * Split one CSV line into its values. Values may be quoted with <code>"</code>, with
+	 * <code>""</code> standing for a quote; values spanning lines are not supported.
+	 */
+	static List<String> parseCsv(String line) {
+		List<String> values = new ArrayList<>();
+		StringBuilder value = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					value.append('"');
+					i++;
+				}
+				else if (c == '"') {
+					quoted = false;
+				}
+				else {
+					value.append(c);
+				}
+			}
+			else if (c == '"' && value.toString().trim().isEmpty()) {
+				value.setLength(0);
+				quoted = true;
+			}
+			else if (c == ',') {
+				values.add(value.toString().trim());
+				value.setLength(0);
+			}
+			else {
+				value.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("unterminated quoted value");
+		}
+		values.add(value.toString().trim());
+		return values;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.reader.close();
+	}
+
+	/**
+	 * One line of input: its fields by name, or the reason it could not be parsed.
+	 */
+	static final class Record {
+
+		private final int line;
+
+		private final Map<String, String> fields;
+
+		private final String error;
+
+		Record(int line, Map<String, String> fields) {
+			this.line = line;
+			this.fields = fields;
+			this.error = null;
+		}
+
+		Record(int line, String error) {
+			this.line = line;
+			this.fields = Collections.emptyMap();
+			this.error = error;
+		}
+
+		int getLine() {
+			return this.line;
+		}
+
+		String getError() {
+			return this.error;
+		}
+
+		/**
+		 * Return the value of a field, or {@code null} if it is missing or blank.
+		 */
+		String get(String name) {
+			String value = this.fields.get(name);
+			return (value != null && !value.trim().isEmpty()) ? value.trim() : null;
+		}
+
+	}
+
+}
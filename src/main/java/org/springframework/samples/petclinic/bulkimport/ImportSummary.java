@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+/**
+ * The rows inserted by an import per table, and the number of input lines that were not
+ * imported.
+ */
+public class ImportSummary {
+
+	private long owners;
+
+	private long pets;
+
+	private long visits;
+
+	private long failed;
+
+	void add(String table, int imported, int failed) {
+		switch (table) {
+		case "owners":
+			this.owners += imported;
+			break;
+		case "pets":
+			this.pets += imported;
+			break;
+		default:
+			this.visits += imported;
+		}
+		this.failed += failed;
+	}
+
+	public long getOwners() {
+		return this.owners;
+	}
+
+	public long getPets() {
+		return this.pets;
+	}
+
+	public long getVisits() {
+		return this.visits;
+	}
+
+	public long getFailed() {
+		return this.failed;
+	}
+
+	@Override
+	public String toString() {
+		return this.owners + " owners, " + this.pets + " pets and " + this.visits + " visits imported, " + this.failed
+				+ " lines failed";
+	}
+
+}
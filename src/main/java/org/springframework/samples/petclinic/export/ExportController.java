@@ -0,0 +1,125 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Bulk export of owners, pets and visits as newline-delimited JSON, for example for a
+ * nightly warehouse sync. Each export is ordered by id and takes the last id a previous,
+ * interrupted export received (<code>afterId</code>) to resume from there. Responses are
+ * gzip-compressed when the client's <code>Accept-Encoding</code> gives <code>gzip</code>
+ * (or <code>*</code>) a non-zero quality.
+ */
+@RestController
+class ExportController {
+
+	private final NdjsonExporter exporter;
+
+	ExportController(NdjsonExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	@GetMapping("/export/owners.ndjson")
+	ResponseEntity<StreamingResponseBody> exportOwners(@RequestParam(defaultValue = "0") int afterId,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return export(
+				"SELECT id, first_name, last_name, address, city, telephone FROM owners" + " WHERE id > ? ORDER BY id",
+				afterId, acceptEncoding);
+	}
+
+	@GetMapping("/export/pets.ndjson")
+	ResponseEntity<StreamingResponseBody> exportPets(@RequestParam(defaultValue = "0") int afterId,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return export("SELECT p.id, p.name, p.birth_date, t.name AS type, p.owner_id FROM pets p"
+				+ " JOIN types t ON t.id = p.type_id WHERE p.id > ? ORDER BY p.id", afterId, acceptEncoding);
+	}
+
+	@GetMapping("/export/visits.ndjson")
+	ResponseEntity<StreamingResponseBody> exportVisits(@RequestParam(defaultValue = "0") int afterId,
+			@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return export("SELECT id, pet_id, visit_date, description FROM visits WHERE id > ? ORDER BY id", afterId,
+				acceptEncoding);
+	}
+
+	private ResponseEntity<StreamingResponseBody> export(String sql, int afterId, String acceptEncoding) {
+		boolean gzip = acceptsGzip(acceptEncoding);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body((out) -> {
+			if (gzip) {
+				GZIPOutputStream compressed = new GZIPOutputStream(out, true);
+				this.exporter.export(sql, compressed, afterId);
+				compressed.finish();
+			}
+			else {
+				this.exporter.export(sql, out, afterId);
+			}
+		});
+	}
+
+	/**
+	 * Whether an <code>Accept-Encoding</code> header accepts gzip: an explicit
+	 * <code>gzip</code> (or <code>x-gzip</code>) entry decides by its quality, otherwise
+	 * a <code>*</code> entry does.
+	 */
+	static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		Boolean wildcard = null;
+		for (String entry : acceptEncoding.split(",")) {
+			String[] parts = entry.split(";");
+			String coding = parts[0].trim();
+			boolean accepted = quality(parts) > 0;
+			if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+				return accepted;
+			}
+			if (coding.equals("*")) {
+				wildcard = accepted;
+			}
+		}
+		return Boolean.TRUE.equals(wildcard);
+	}
+
+	private static double quality(String[] parts) {
+		for (int i = 1; i < parts.length; i++) {
+			String parameter = parts[i].trim();
+			if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2).trim());
+				}
+				catch (NumberFormatException ex) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+}
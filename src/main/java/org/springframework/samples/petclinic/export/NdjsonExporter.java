@@ -0,0 +1,136 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the rows of a query as newline-delimited JSON, one object per row with the
+ * column names in camel case. Rows are read through a forward-only cursor and written as
+ * they arrive, so memory use does not grow with the size of the table.
+ * <p>
+ * The fetch size depends on the database: MySQL Connector/J only streams rows one by one
+ * with a fetch size of {@link Integer#MIN_VALUE} and otherwise reads the whole result
+ * into memory; H2 and HSQLDB honour a regular fetch size and keep large results on disk.
+ */
+@Component
+class NdjsonExporter {
+
+	static final int DEFAULT_FETCH_SIZE = 1000;
+
+	private static final int FLUSH_ROWS = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	private final ObjectMapper mapper;
+
+	NdjsonExporter(DataSource dataSource, ObjectMapper mapper, @Value("${database}") String database) {
+		this.jdbc = new JdbcTemplate(dataSource);
+		this.jdbc.setFetchSize(fetchSize(database));
+		this.mapper = mapper;
+	}
+
+	static int fetchSize(String database) {
+		return "mysql".equals(database) ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+	}
+
+	int getFetchSize() {
+		return this.jdbc.getFetchSize();
+	}
+
+	/**
+	 * Write every row of the query to the output stream.
+	 * @param sql the query, with one <code>?</code> parameter per argument
+	 * @param out the stream to write to; left open
+	 * @param args the query arguments
+	 * @return the number of rows written
+	 */
+	long export(String sql, OutputStream out, Object... args) throws IOException {
+		try (JsonGenerator generator = this.mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+			long[] rows = new long[1];
+			try {
+				this.jdbc.query(sql, (ResultSet rs) -> {
+					write(rs, generator);
+					if (++rows[0] % FLUSH_ROWS == 0) {
+						flush(generator);
+					}
+				}, args);
+			}
+			catch (UncheckedIOException ex) {
+				throw ex.getCause();
+			}
+			return rows[0];
+		}
+	}
+
+	private void write(ResultSet rs, JsonGenerator generator) throws SQLException {
+		ResultSetMetaData metaData = rs.getMetaData();
+		try {
+			generator.writeStartObject();
+			for (int i = 1; i <= metaData.getColumnCount(); i++) {
+				generator.writeFieldName(
+						JdbcUtils.convertUnderscoreNameToPropertyName(JdbcUtils.lookupColumnName(metaData, i)));
+				Object value = rs.getObject(i);
+				if (value instanceof Date) {
+					generator.writeString(((Date) value).toLocalDate().toString());
+				}
+				else if (value instanceof Number) {
+					generator.writeNumber(((Number) value).longValue());
+				}
+				else if (value == null) {
+					generator.writeNull();
+				}
+				else {
+					generator.writeString(value.toString());
+				}
+			}
+			generator.writeEndObject();
+			generator.writeRaw('\n');
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static void flush(JsonGenerator generator) {
+		try {
+			generator.flush();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
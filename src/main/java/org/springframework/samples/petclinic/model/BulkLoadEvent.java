@@ -0,0 +1,39 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+/**
+ * Published once rows have been written straight to the database in bulk, bypassing the
+ * repositories and therefore the saved events, so that derived structures (the owner last
+ * name index, the search index, the visit rollups) can be rebuilt from the database.
+ */
+public class BulkLoadEvent {
+
+	private final String source;
+
+	public BulkLoadEvent(String source) {
+		this.source = source;
+	}
+
+	/**
+	 * What loaded the rows, for example <code>import</code>.
+	 * @return the source of the rows
+	 */
+	public String getSource() {
+		return this.source;
+	}
+
+}
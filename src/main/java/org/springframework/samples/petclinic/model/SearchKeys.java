@@ -0,0 +1,48 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes names into search keys that are compared exactly, so that searches ignore
+ * case and accents in the same way on every database. A key is the name decomposed into
+ * base characters and combining marks, without the marks and in lower case: both
+ * <code>Müller</code> and <code>MULLER</code> become <code>muller</code>.
+ */
+public final class SearchKeys {
+
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+	private SearchKeys() {
+	}
+
+	/**
+	 * Return the search key of the given text.
+	 * @param text the text to normalize, may be {@code null}
+	 * @return the search key, or an empty string for {@code null}
+	 */
+	public static String normalize(String text) {
+		if (text == null || text.isEmpty()) {
+			return "";
+		}
+		String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD);
+		return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -16,27 +16,37 @@
 package org.springframework.samples.petclinic.owner;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
-import javax.persistence.FetchType;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotEmpty;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.core.style.ToStringCreator;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.samples.petclinic.model.Person;
+import org.springframework.samples.petclinic.model.SearchKeys;
 
 /**
  * Simple JavaBean domain object representing an owner.
+ * <p>
+ * Pets are loaded lazily. Repository methods choose what to fetch with the named entity
+ * graphs: <code>Owner.pets</code> adds the pets, as the owner list shows their names, and
+ * <code>Owner.details</code> also their types, for the owner page.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -44,9 +54,16 @@ import org.springframework.samples.petclinic.model.Person;
  * @author Michael Isvy
  */
 @Entity
+@NamedEntityGraphs({ @NamedEntityGraph(name = "Owner.pets", attributeNodes = @NamedAttributeNode("pets")),
+		@NamedEntityGraph(name = "Owner.details",
+				attributeNodes = @NamedAttributeNode(value = "pets", subgraph = "pet"),
+				subgraphs = @NamedSubgraph(name = "pet", attributeNodes = @NamedAttributeNode("type"))) })
 @Table(name = "owners")
 public class Owner extends Person {
 
+	private static final Comparator<Pet> PET_ORDER = Comparator.comparing(Pet::getName,
+			Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+
 	@Column(name = "address")
 	@NotEmpty
 	private String address;
@@ -60,8 +77,28 @@ public class Owner extends Person {
 	@Digits(fraction = 0, integer = 10)
 	private String telephone;
 
-	@OneToMany(cascade = CascadeType.ALL, mappedBy = "owner", fetch = FetchType.EAGER)
-	private Set<Pet> pets;
+	/**
+	 * The {@link SearchKeys search key} of the last name, which the owner search matches
+	 * and orders by.
+	 */
+	@Column(name = "last_name_search")
+	private String lastNameSearch;
+
+	/**
+	 * The {@link SearchKeys search key} of the first name, matched by the owner search.
+	 */
+	@Column(name = "first_name_search")
+	private String firstNameSearch;
+
+	/**
+	 * The {@link SearchKeys search key} of the city, matched by the owner search.
+	 */
+	@Column(name = "city_search")
+	private String citySearch;
+
+	@OneToMany(cascade = CascadeType.ALL, mappedBy = "owner")
+	@OrderBy("name")
+	private List<Pet> pets;
 
 	public String getAddress() {
 		return this.address;
@@ -87,26 +124,44 @@ public class Owner extends Person {
 		this.telephone = telephone;
 	}
 
-	protected Set<Pet> getPetsInternal() {
+	public String getLastNameSearch() {
+		return this.lastNameSearch;
+	}
+
+	@PrePersist
+	@PreUpdate
+	void updateSearchKeys() {
+		this.lastNameSearch = SearchKeys.normalize(getLastName());
+		this.firstNameSearch = SearchKeys.normalize(getFirstName());
+		this.citySearch = SearchKeys.normalize(getCity());
+	}
+
+	protected List<Pet> getPetsInternal() {
 		if (this.pets == null) {
-			this.pets = new HashSet<>();
+			this.pets = new ArrayList<>();
 		}
 		return this.pets;
 	}
 
-	protected void setPetsInternal(Set<Pet> pets) {
-		this.pets = pets;
+	protected void setPetsInternal(Collection<Pet> pets) {
+		this.pets = new ArrayList<>(pets);
+		this.pets.sort(PET_ORDER);
 	}
 
+	/**
+	 * Return the pets of this owner, sorted by name. Pets are loaded in that order and
+	 * kept in it when added, so this is a read-only view rather than a sorted copy.
+	 * @return an unmodifiable view of the pets
+	 */
 	public List<Pet> getPets() {
-		List<Pet> sortedPets = new ArrayList<>(getPetsInternal());
-		PropertyComparator.sort(sortedPets, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedPets);
+		return Collections.unmodifiableList(getPetsInternal());
 	}
 
 	public void addPet(Pet pet) {
-		if (pet.isNew()) {
+		if (pet.isNew() && !getPetsInternal().contains(pet)) {
 			getPetsInternal().add(pet);
+			// a single pass over the already sorted pets
+			getPetsInternal().sort(PET_ORDER);
 		}
 		pet.setOwner(this);
 	}
@@ -139,6 +194,14 @@ public class Owner extends Person {
 		return null;
 	}
 
+	/**
+	 * Events published by Spring Data after this owner has been saved.
+	 */
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return Collections.singletonList(new OwnerSavedEvent(this));
+	}
+
 	@Override
 	public String toString() {
 		return new ToStringCreator(this)
@@ -15,14 +15,20 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.system.PaginationCounter;
+import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -46,13 +52,22 @@ class OwnerController {
 
 	private static final String VIEWS_OWNER_CREATE_OR_UPDATE_FORM = "owners/createOrUpdateOwnerForm";
 
+	private static final int PAGE_SIZE = 5;
+
 	private final OwnerRepository owners;
 
 	private final VisitRepository visits;
 
-	public OwnerController(OwnerRepository clinicService, VisitRepository visits) {
+	private final PaginationCounter counter;
+
+	private final OwnerLastNameIndex lastNameIndex;
+
+	public OwnerController(OwnerRepository clinicService, VisitRepository visits, PaginationCounter counter,
+			OwnerLastNameIndex lastNameIndex) {
 		this.owners = clinicService;
 		this.visits = visits;
+		this.counter = counter;
+		this.lastNameIndex = lastNameIndex;
 	}
 
 	@InitBinder
@@ -85,55 +100,100 @@ class OwnerController {
 	}
 
 	@GetMapping("/owners")
-	public String processFindForm(@RequestParam(defaultValue = "1") int page, Owner owner, BindingResult result,
-			Model model) {
+	public String processFindForm(@RequestParam(required = false) String after,
+			@RequestParam(required = false) String before, @RequestParam(defaultValue = "false") boolean last,
+			Owner owner, BindingResult result, Model model) {
 
 		// allow parameterless GET request for /owners to return all records
 		if (owner.getLastName() == null) {
 			owner.setLastName(""); // empty string signifies broadest possible search
 		}
 
-		// find owners by last name
+		// find owners by last name, seeking to the requested page if a cursor is given
 		String lastName = owner.getLastName();
-		Page<Owner> ownersResults = findPaginatedForOwnersLastName(page, lastName);
-		if (ownersResults.isEmpty()) {
+		OwnerCursor afterCursor = OwnerCursor.decode(after);
+		OwnerCursor beforeCursor = (afterCursor != null) ? null : OwnerCursor.decode(before);
+		boolean lastPage = last && afterCursor == null && beforeCursor == null;
+		OwnerLastNameIndex.Snapshot index = this.lastNameIndex.snapshot();
+		List<Integer> ids = findPaginatedForOwnersLastName(index, lastName, afterCursor, beforeCursor, lastPage);
+		boolean hasMore = ids.size() > PAGE_SIZE;
+		List<Owner> ownersResults = ids.isEmpty() ? Collections.emptyList()
+				: this.owners.findByIdIn(new ArrayList<>(ids.subList(0, Math.min(ids.size(), PAGE_SIZE))));
+		boolean firstPage = afterCursor == null && beforeCursor == null && !lastPage;
+		if (ownersResults.isEmpty() && firstPage) {
 			// no owners found
 			result.rejectValue("lastName", "notFound", "not found");
 			return "owners/findOwners";
 		}
-		else if (ownersResults.getTotalElements() == 1) {
+		else if (ownersResults.size() == 1 && firstPage && !hasMore) {
 			// 1 owner found
-			owner = ownersResults.iterator().next();
+			owner = ownersResults.get(0);
 			return "redirect:/owners/" + owner.getId();
 		}
 		else {
 			// multiple owners found
-			lastName = owner.getLastName();
-			return addPaginationModel(page, model, lastName, ownersResults);
+			boolean backwards = beforeCursor != null || lastPage;
+			OwnerCursor previous = (afterCursor != null || (backwards && hasMore))
+					? cursorOf(ownersResults, 0, (afterCursor != null) ? afterCursor.justAfter() : null) : null;
+			OwnerCursor next = (beforeCursor != null || (!lastPage && hasMore)) ? cursorOf(ownersResults,
+					ownersResults.size() - 1, (beforeCursor != null) ? beforeCursor.justBefore() : null) : null;
+			return addPaginationModel(model, index, lastName, ownersResults, previous, next);
 		}
 	}
 
-	private String addPaginationModel(int page, Model model, String lastName, Page<Owner> paginated) {
-		model.addAttribute("listOwners", paginated);
-		List<Owner> listOwners = paginated.getContent();
-		model.addAttribute("currentPage", page);
-		model.addAttribute("totalPages", paginated.getTotalPages());
-		model.addAttribute("totalItems", paginated.getTotalElements());
+	private String addPaginationModel(Model model, OwnerLastNameIndex.Snapshot index, String lastName,
+			List<Owner> listOwners, OwnerCursor previous, OwnerCursor next) {
+		model.addAttribute("lastName", lastName);
+		if (index != null) {
+			model.addAttribute("totalItems", index.count(lastName));
+			model.addAttribute("totalItemsApproximate", false);
+		}
+		else {
+			model.addAttribute("totalItems",
+					this.counter.count("owners:" + lastName, () -> owners.countByLastName(lastName)));
+			model.addAttribute("totalItemsApproximate", this.counter.isApproximate());
+		}
+		model.addAttribute("previousCursor", (previous != null) ? previous.encode() : null);
+		model.addAttribute("nextCursor", (next != null) ? next.encode() : null);
 		model.addAttribute("listOwners", listOwners);
 		return "owners/ownersList";
 	}
 
-	private Page<Owner> findPaginatedForOwnersLastName(int page, String lastname) {
-
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return owners.findByLastName(lastname, pageable);
+	private OwnerCursor cursorOf(List<Owner> listOwners, int index, OwnerCursor fallback) {
+		// a stale cursor may point past the end, so fall back to a position that includes
+		// the owner it pointed at, to let the user navigate back
+		return listOwners.isEmpty() ? fallback : OwnerCursor.of(listOwners.get(index));
+	}
 
+	/**
+	 * Select the ids of one page of owners, plus one extra id to tell whether there is a
+	 * further page in the direction of travel. Owners themselves are loaded afterwards
+	 * with their pets in a single query. The ids come from the in-memory last name index
+	 * when it is available. The last page is read backwards from the end, like a page
+	 * before a cursor.
+	 */
+	private List<Integer> findPaginatedForOwnersLastName(OwnerLastNameIndex.Snapshot index, String lastname,
+			OwnerCursor after, OwnerCursor before, boolean last) {
+		if (index != null) {
+			return last ? index.findLastIds(lastname, PAGE_SIZE + 1)
+					: index.findIds(lastname, after, before, PAGE_SIZE + 1);
+		}
+		Pageable window = PageRequest.of(0, PAGE_SIZE + 1);
+		if (last) {
+			return owners.findLastIdsByLastName(lastname, window);
+		}
+		if (after != null) {
+			return owners.findIdsByLastNameAfter(lastname, after.getLastNameSearch(), after.getId(), window);
+		}
+		if (before != null) {
+			return owners.findIdsByLastNameBefore(lastname, before.getLastNameSearch(), before.getId(), window);
+		}
+		return owners.findIdsByLastName(lastname, window);
 	}
 
 	@GetMapping("/owners/{ownerId}/edit")
 	public String initUpdateOwnerForm(@PathVariable("ownerId") int ownerId, Model model) {
-		Owner owner = this.owners.findById(ownerId);
+		Owner owner = this.owners.findByIdWithoutPets(ownerId);
 		model.addAttribute(owner);
 		return VIEWS_OWNER_CREATE_OR_UPDATE_FORM;
 	}
@@ -160,11 +220,36 @@ class OwnerController {
 	public ModelAndView showOwner(@PathVariable("ownerId") int ownerId) {
 		ModelAndView mav = new ModelAndView("owners/ownerDetails");
 		Owner owner = this.owners.findById(ownerId);
-		for (Pet pet : owner.getPets()) {
-			pet.setVisitsInternal(visits.findByPetId(pet.getId()));
-		}
+		mav.addObject("moreVisits", loadLatestVisits(owner.getPets()));
 		mav.addObject(owner);
 		return mav;
 	}
 
+	/**
+	 * Load the most recent visits of all given pets with a single query instead of one
+	 * per pet, one page of the {@link VisitHistoryController visit history} per pet.
+	 * @param pets the pets to populate
+	 * @return the ids of the pets that have more visits
+	 */
+	private Set<Integer> loadLatestVisits(List<Pet> pets) {
+		if (pets.isEmpty()) {
+			return Collections.emptySet();
+		}
+		List<Integer> petIds = pets.stream().map(Pet::getId).collect(Collectors.toList());
+		// one more than shown tells whether there are more
+		Map<Integer, List<Visit>> visitsByPet = this.visits
+				.findLatestByPetIdIn(petIds, VisitHistoryController.PAGE_SIZE + 1).stream()
+				.collect(Collectors.groupingBy(Visit::getPetId));
+		Set<Integer> moreVisits = new HashSet<>();
+		for (Pet pet : pets) {
+			List<Visit> visits = visitsByPet.getOrDefault(pet.getId(), Collections.emptyList());
+			if (visits.size() > VisitHistoryController.PAGE_SIZE) {
+				moreVisits.add(pet.getId());
+				visits = visits.subList(0, VisitHistoryController.PAGE_SIZE);
+			}
+			pet.setVisitsInternal(visits);
+		}
+		return moreVisits;
+	}
+
 }
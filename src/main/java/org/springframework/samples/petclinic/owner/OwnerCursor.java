@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.samples.petclinic.model.SearchKeys;
+import org.springframework.util.StringUtils;
+
+/**
+ * Position of an {@link Owner} in the <code>(last name search key, id)</code> ordering
+ * used by the owner search. A cursor is handed out to the browser as an opaque, URL safe
+ * token and lets the next query seek directly to the following page instead of skipping
+ * rows with an offset.
+ */
+final class OwnerCursor {
+
+	private static final char SEPARATOR = ':';
+
+	private final String lastNameSearch;
+
+	private final int id;
+
+	private OwnerCursor(String lastNameSearch, int id) {
+		this.lastNameSearch = lastNameSearch;
+		this.id = id;
+	}
+
+	static OwnerCursor of(Owner owner) {
+		return new OwnerCursor(SearchKeys.normalize(owner.getLastName()), owner.getId());
+	}
+
+	/**
+	 * Decode a token previously produced by {@link #encode()}.
+	 * @param token the token to decode, may be {@code null}
+	 * @return the cursor, or {@code null} if the token is empty or malformed
+	 */
+	static OwnerCursor decode(String token) {
+		if (!StringUtils.hasText(token)) {
+			return null;
+		}
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = value.indexOf(SEPARATOR);
+			if (separator < 1) {
+				return null;
+			}
+			return new OwnerCursor(value.substring(separator + 1), Integer.parseInt(value.substring(0, separator)));
+		}
+		catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * The position right after this one, so that seeking <i>before</i> it includes the
+	 * owner at this position.
+	 */
+	OwnerCursor justAfter() {
+		return new OwnerCursor(this.lastNameSearch, this.id + 1);
+	}
+
+	/**
+	 * The position right before this one, so that seeking <i>after</i> it includes the
+	 * owner at this position.
+	 */
+	OwnerCursor justBefore() {
+		return new OwnerCursor(this.lastNameSearch, this.id - 1);
+	}
+
+	String getLastNameSearch() {
+		return this.lastNameSearch;
+	}
+
+	int getId() {
+		return this.id;
+	}
+
+	String encode() {
+		String value = this.id + String.valueOf(SEPARATOR) + this.lastNameSearch;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.samples.petclinic.model.SearchKeys;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional in-process index of owner last names, ordered like the owner search by last
+ * name {@link SearchKeys search key} and id. When enabled it is built at startup and
+ * follows every {@link OwnerRepository#save(Owner) save}, so that prefix lookups and
+ * counts on the find owners form do not need to touch the database.
+ * <p>
+ * The index only sees changes made through this application, and is rebuilt after a
+ * {@link BulkLoadEvent bulk load}. With {@link Consistency#BOUNDED} it is considered
+ * stale once it is older than <code>petclinic.owner-index.max-age</code>; callers then
+ * fall back to the database while it is rebuilt in the background. It also gives up (and
+ * callers fall back) if the number of owners exceeds
+ * <code>petclinic.owner-index.max-entries</code>.
+ */
+@Component
+class OwnerLastNameIndex {
+
+	private static final Log logger = LogFactory.getLog(OwnerLastNameIndex.class);
+
+	private static final int BATCH_SIZE = 10000;
+
+	/**
+	 * How far the index may lag behind the database before it stops answering.
+	 */
+	enum Consistency {
+
+		/**
+		 * Always answer once built; changes made outside the application are only seen
+		 * after a restart or an explicit {@link OwnerLastNameIndex#rebuild()}.
+		 */
+		EVENTUAL,
+
+		/**
+		 * Answer only while the last rebuild is younger than the configured maximum age.
+		 */
+		BOUNDED
+
+	}
+
+	private final OwnerRepository owners;
+
+	private final TaskExecutor taskExecutor;
+
+	private final boolean enabled;
+
+	private final int maxEntries;
+
+	private final Consistency consistency;
+
+	private final Duration maxAge;
+
+	private final Clock clock;
+
+	private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+	private volatile Snapshot current;
+
+	private volatile Snapshot building;
+
+	@Autowired
+	OwnerLastNameIndex(OwnerRepository owners, TaskExecutor taskExecutor,
+			@Value("${petclinic.owner-index.enabled:false}") boolean enabled,
+			@Value("${petclinic.owner-index.max-entries:2000000}") int maxEntries,
+			@Value("${petclinic.owner-index.consistency:eventual}") Consistency consistency,
+			@Value("${petclinic.owner-index.max-age:10m}") Duration maxAge) {
+		this(owners, taskExecutor, enabled, maxEntries, consistency, maxAge, Clock.systemUTC());
+	}
+
+	OwnerLastNameIndex(OwnerRepository owners, TaskExecutor taskExecutor, boolean enabled, int maxEntries,
+			Consistency consistency, Duration maxAge, Clock clock) {
+		this.owners = owners;
+		this.taskExecutor = taskExecutor;
+		this.enabled = enabled;
+		this.maxEntries = maxEntries;
+		this.consistency = consistency;
+		this.maxAge = maxAge;
+		this.clock = clock;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void onApplicationReady() {
+		if (this.enabled) {
+			this.taskExecutor.execute(this::rebuild);
+		}
+	}
+
+	@EventListener(BulkLoadEvent.class)
+	void onBulkLoad() {
+		onApplicationReady();
+	}
+
+	/**
+	 * Reload the index from the database. Lookups keep being served by the previous index
+	 * (or by the database) until the new one is complete.
+	 */
+	void rebuild() {
+		if (!this.rebuilding.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			Snapshot snapshot = new Snapshot(Instant.now(this.clock));
+			this.building = snapshot;
+			int lastId = 0;
+			List<Object[]> batch;
+			do {
+				batch = this.owners.findLastNamesAfterId(lastId, PageRequest.of(0, BATCH_SIZE));
+				for (Object[] row : batch) {
+					lastId = (Integer) row[0];
+					snapshot.putIfAbsent(lastId, (String) row[1]);
+				}
+				if (snapshot.size() > this.maxEntries) {
+					logger.warn("Owner last name index disabled: more than " + this.maxEntries + " owners");
+					this.current = null;
+					return;
+				}
+			}
+			while (batch.size() == BATCH_SIZE);
+			snapshot.freeze();
+			this.current = snapshot;
+		}
+		finally {
+			this.building = null;
+			this.rebuilding.set(false);
+		}
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void onOwnerSaved(OwnerSavedEvent event) {
+		Owner owner = event.getOwner();
+		if (owner.getId() == null) {
+			return;
+		}
+		Snapshot snapshot = this.current;
+		if (snapshot != null) {
+			snapshot.put(owner.getId(), owner.getLastName());
+		}
+		Snapshot pending = this.building;
+		if (pending != null) {
+			pending.put(owner.getId(), owner.getLastName());
+		}
+	}
+
+	/**
+	 * Return the index to answer lookups from, or {@code null} if they cannot currently
+	 * be answered from memory and callers must query the database. Callers use the
+	 * returned snapshot for all lookups of one request, so that a page and its count come
+	 * from the same index even if it is rebuilt or dropped meanwhile.
+	 */
+	Snapshot snapshot() {
+		Snapshot snapshot = this.current;
+		if (snapshot == null) {
+			return null;
+		}
+		if (this.consistency == Consistency.BOUNDED
+				&& snapshot.builtAt.plus(this.maxAge).isBefore(Instant.now(this.clock))) {
+			if (!this.rebuilding.get()) {
+				this.taskExecutor.execute(this::rebuild);
+			}
+			return null;
+		}
+		return snapshot;
+	}
+
+	private static NavigableSet<Entry> range(NavigableSet<Entry> entries, String prefix) {
+		String folded = fold(prefix);
+		return entries.subSet(new Entry(folded, Integer.MIN_VALUE), true,
+				new Entry(folded + Character.MAX_VALUE, Integer.MIN_VALUE), false);
+	}
+
+	/**
+	 * Return the index of the first key that is not less than the given key.
+	 */
+	private static int lowerBound(String[] keys, String key) {
+		int low = 0;
+		int high = keys.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (keys[middle].compareTo(key) < 0) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private static String fold(String lastName) {
+		return SearchKeys.normalize(lastName);
+	}
+
+	private static final class Entry implements Comparable<Entry> {
+
+		private static final Comparator<Entry> ORDER = Comparator.<Entry, String>comparing(e -> e.key)
+				.thenComparingInt(e -> e.id);
+
+		private final String key;
+
+		private final int id;
+
+		Entry(String lastName, int id) {
+			this.key = fold(lastName);
+			this.id = id;
+		}
+
+		@Override
+		public int compareTo(Entry other) {
+			return ORDER.compare(this, other);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Entry && compareTo((Entry) other) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.key.hashCode() + this.id;
+		}
+
+	}
+
+	/**
+	 * The last names of all owners at one point in time, kept up to date with saves.
+	 * Counts come from the sorted keys of the rebuild, by binary search, corrected by the
+	 * entries that saves added and removed since then; a skip list subset would have to
+	 * be walked to be counted.
+	 */
+	static final class Snapshot {
+
+		private static final String[] NO_KEYS = {};
+
+		private final Instant builtAt;
+
+		private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+		private final ConcurrentMap<Integer, String> lastNames = new ConcurrentHashMap<>();
+
+		private volatile String[] keys = NO_KEYS;
+
+		private final NavigableSet<Entry> added = new ConcurrentSkipListSet<>();
+
+		private final NavigableSet<Entry> removed = new ConcurrentSkipListSet<>();
+
+		Snapshot(Instant builtAt) {
+			this.builtAt = builtAt;
+		}
+
+		/**
+		 * Count the owners whose last name starts with the given prefix, ignoring case
+		 * and accents.
+		 */
+		long count(String prefix) {
+			String folded = fold(prefix);
+			String[] keys = this.keys;
+			long count = lowerBound(keys, folded + Character.MAX_VALUE) - lowerBound(keys, folded);
+			return count + range(this.added, prefix).size() - range(this.removed, prefix).size();
+		}
+
+		/**
+		 * Find the ids of the owners whose last name starts with the given prefix, in the
+		 * same order and with the same cursor semantics as
+		 * {@link OwnerRepository#findIdsByLastNameAfter} and
+		 * {@link OwnerRepository#findIdsByLastNameBefore}.
+		 * @param prefix the last name prefix
+		 * @param after return owners following this position, may be {@code null}
+		 * @param before return owners preceding this position (nearest first), may be
+		 * {@code null}
+		 * @param limit the maximum number of ids to return
+		 */
+		List<Integer> findIds(String prefix, OwnerCursor after, OwnerCursor before, int limit) {
+			NavigableSet<Entry> range = range(this.entries, prefix);
+			if (after != null) {
+				range = range.tailSet(new Entry(after.getLastNameSearch(), after.getId()), false);
+			}
+			else if (before != null) {
+				range = range.headSet(new Entry(before.getLastNameSearch(), before.getId()), false).descendingSet();
+			}
+			List<Integer> ids = new ArrayList<>(limit);
+			for (Entry entry : range) {
+				if (ids.size() == limit) {
+					break;
+				}
+				ids.add(entry.id);
+			}
+			return ids;
+		}
+
+		List<Integer> findLastIds(String prefix, int limit) {
+			List<Integer> ids = new ArrayList<>(limit);
+			for (Entry entry : range(this.entries, prefix).descendingSet()) {
+				if (ids.size() == limit) {
+					break;
+				}
+				ids.add(entry.id);
+			}
+			return ids;
+		}
+
+		int size() {
+			return this.lastNames.size();
+		}
+
+		synchronized void put(int id, String lastName) {
+			this.lastNames.compute(id, (key, previous) -> {
+				if (previous != null) {
+					Entry entry = new Entry(previous, id);
+					this.entries.remove(entry);
+					if (!this.added.remove(entry)) {
+						this.removed.add(entry);
+					}
+				}
+				Entry entry = new Entry(lastName, id);
+				this.entries.add(entry);
+				if (!this.removed.remove(entry)) {
+					this.added.add(entry);
+				}
+				return lastName;
+			});
+		}
+
+		synchronized void putIfAbsent(int id, String lastName) {
+			this.lastNames.computeIfAbsent(id, (key) -> {
+				this.entries.add(new Entry(lastName, id));
+				return lastName;
+			});
+		}
+
+		/**
+		 * Take the current entries as the sorted keys that counts start from, once the
+		 * rebuild has loaded them; later saves are counted as added and removed entries.
+		 */
+		synchronized void freeze() {
+			this.keys = this.entries.stream().map((entry) -> entry.key).toArray(String[]::new);
+			this.added.clear();
+			this.removed.clear();
+		}
+
+	}
+
+}
@@ -15,8 +15,14 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.query.Param;
@@ -35,35 +41,157 @@ import org.springframework.transaction.annotation.Transactional;
  */
 public interface OwnerRepository extends Repository<Owner, Integer> {
 
+	/**
+	 * Condition of the searches by last name: a prefix match of the
+	 * {@link Owner#getLastNameSearch() last name search key} against the search key of
+	 * the <code>lastName</code> parameter, which is a range scan of the index on that
+	 * column on every database.
+	 */
+	String LAST_NAME_MATCHES = "owner.lastNameSearch LIKE "
+			+ ":#{T(org.springframework.samples.petclinic.model.SearchKeys).normalize(#lastName)}% ";
+
 	/**
 	 * Retrieve {@link Owner}s from the data store by last name, returning all owners
-	 * whose last name <i>starts</i> with the given name.
+	 * whose last name <i>starts</i> with the given name, ignoring case and accents.
 	 * @param lastName Value to search for
 	 * @return a Collection of matching {@link Owner}s (or an empty Collection if none
 	 * found)
+	 * @deprecated the owner search pages by seeking with
+	 * {@link #findIdsByLastName(String, Pageable)} and its <code>After</code> and
+	 * <code>Before</code> variants, then loads the owners with
+	 * {@link #findByIdIn(Collection)}, rather than counting and skipping rows
 	 */
-
-	@Query("SELECT DISTINCT owner FROM Owner owner left join  owner.pets WHERE owner.lastName LIKE :lastName% ")
+	@Deprecated
+	@Query("SELECT owner FROM Owner owner WHERE " + LAST_NAME_MATCHES)
 	@Transactional(readOnly = true)
 	Page<Owner> findByLastName(@Param("lastName") String lastName, Pageable pageable);
 
 	/**
-	 * Retrieve an {@link Owner} from the data store by id.
+	 * Count the {@link Owner}s whose last name <i>starts</i> with the given name,
+	 * ignoring case and accents.
+	 * @param lastName Value to search for
+	 * @return the number of matching {@link Owner}s
+	 */
+	@Query("SELECT COUNT(owner) FROM Owner owner WHERE " + LAST_NAME_MATCHES)
+	@Transactional(readOnly = true)
+	long countByLastName(@Param("lastName") String lastName);
+
+	/**
+	 * Retrieve the ids of the first {@link Owner}s whose last name <i>starts</i> with the
+	 * given name, ignoring case and accents, ordered by last name search key and id. Only
+	 * the page size of the given {@link Pageable} is used.
+	 * @param lastName Value to search for
+	 * @param pageable the maximum number of ids to return
+	 * @return the matching ids
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE " + LAST_NAME_MATCHES + "ORDER BY owner.lastNameSearch, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name and that come <i>after</i> the given position in the last name search key and
+	 * id ordering. This seeks on the index rather than skipping rows, so deep pages cost
+	 * the same as the first one.
+	 * @param lastName Value to search for
+	 * @param afterLastName last name search key of the last owner already shown
+	 * @param afterId id of the last owner already shown
+	 * @param pageable the maximum number of ids to return
+	 * @return the matching ids, in ascending order
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE " + LAST_NAME_MATCHES + "AND (owner.lastNameSearch > :afterLastName "
+			+ "OR (owner.lastNameSearch = :afterLastName AND owner.id > :afterId)) "
+			+ "ORDER BY owner.lastNameSearch, owner.id")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastNameAfter(@Param("lastName") String lastName,
+			@Param("afterLastName") String afterLastName, @Param("afterId") Integer afterId, Pageable pageable);
+
+	/**
+	 * Retrieve the ids of the {@link Owner}s whose last name <i>starts</i> with the given
+	 * name and that come <i>before</i> the given position in the last name search key and
+	 * id ordering.
+	 * @param lastName Value to search for
+	 * @param beforeLastName last name search key of the first owner already shown
+	 * @param beforeId id of the first owner already shown
+	 * @param pageable the maximum number of ids to return
+	 * @return the matching ids, in <i>descending</i> order
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE " + LAST_NAME_MATCHES
+			+ "AND (owner.lastNameSearch < :beforeLastName "
+			+ "OR (owner.lastNameSearch = :beforeLastName AND owner.id < :beforeId)) "
+			+ "ORDER BY owner.lastNameSearch DESC, owner.id DESC")
+	@Transactional(readOnly = true)
+	List<Integer> findIdsByLastNameBefore(@Param("lastName") String lastName,
+			@Param("beforeLastName") String beforeLastName, @Param("beforeId") Integer beforeId, Pageable pageable);
+
+	/**
+	 * Retrieve the ids of the last {@link Owner}s whose last name <i>starts</i> with the
+	 * given name, in the last name search key and id ordering.
+	 * @param lastName Value to search for
+	 * @param pageable the maximum number of ids to return
+	 * @return the matching ids, in <i>descending</i> order
+	 */
+	@Query("SELECT owner.id FROM Owner owner WHERE " + LAST_NAME_MATCHES
+			+ "ORDER BY owner.lastNameSearch DESC, owner.id DESC")
+	@Transactional(readOnly = true)
+	List<Integer> findLastIdsByLastName(@Param("lastName") String lastName, Pageable pageable);
+
+	/**
+	 * Retrieve the {@link Owner}s with the given ids together with their pets in a single
+	 * query, as needed to list them with the names of their pets. Pet types come from the
+	 * second-level cache.
+	 * @param ids the ids to look up
+	 * @return the {@link Owner}s, ordered by last name search key and id
+	 */
+	@Query("SELECT DISTINCT owner FROM Owner owner WHERE owner.id IN :ids ORDER BY owner.lastNameSearch, owner.id")
+	@EntityGraph("Owner.pets")
+	@Transactional(readOnly = true)
+	List<Owner> findByIdIn(@Param("ids") Collection<Integer> ids);
+
+	/**
+	 * Retrieve an {@link Owner} from the data store by id, together with its pets and
+	 * their types. The aggregate is cached per id in the <code>owners</code> cache, which
+	 * stores copies so that callers may modify the returned instance.
 	 * @param id the id to search for
 	 * @return the {@link Owner} if found
 	 */
-	@Query("SELECT owner FROM Owner owner left join fetch owner.pets WHERE owner.id =:id")
+	@Query("SELECT owner FROM Owner owner WHERE owner.id = :id")
+	@EntityGraph("Owner.details")
 	@Transactional(readOnly = true)
+	@Cacheable("owners")
 	Owner findById(@Param("id") Integer id);
 
 	/**
-	 * Save an {@link Owner} to the data store, either inserting or updating it.
+	 * Retrieve an {@link Owner} from the data store by id without its pets, as needed to
+	 * edit the owner's own fields. The pets are not initialized and must not be accessed.
+	 * @param id the id to search for
+	 * @return the {@link Owner} if found
+	 */
+	@Query("SELECT owner FROM Owner owner WHERE owner.id = :id")
+	@Transactional(readOnly = true)
+	Owner findByIdWithoutPets(@Param("id") Integer id);
+
+	/**
+	 * Retrieve the id and last name of the {@link Owner}s following the given id, in id
+	 * order. Used to build the {@link OwnerLastNameIndex} in batches.
+	 * @param afterId the last id already read
+	 * @param pageable the maximum number of rows to return
+	 * @return <code>[id, lastName]</code> pairs
+	 */
+	@Query("SELECT owner.id, owner.lastName FROM Owner owner WHERE owner.id > :afterId ORDER BY owner.id")
+	@Transactional(readOnly = true)
+	List<Object[]> findLastNamesAfterId(@Param("afterId") Integer afterId, Pageable pageable);
+
+	/**
+	 * Save an {@link Owner} to the data store, either inserting or updating it, and evict
+	 * its cached aggregate once the transaction commits.
 	 * @param owner the {@link Owner} to save
 	 */
+	@CacheEvict(value = "owners", key = "#p0.id")
 	void save(Owner owner);
 
 	/**
-	 * Returnes all the owners from data store
+	 * Returnes all the owners from data store, without their pets
 	 **/
 	@Query("SELECT owner FROM Owner owner")
 	@Transactional(readOnly = true)
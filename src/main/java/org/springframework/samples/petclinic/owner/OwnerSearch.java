@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Criteria of the owner search form. Every criterion that is filled in must match: the
+ * last name by prefix and the other criteria as whole values. Names and the city ignore
+ * case and accents; the telephone number is compared by its digits only.
+ */
+public class OwnerSearch {
+
+	private String lastName;
+
+	private String firstName;
+
+	private String telephone;
+
+	private String city;
+
+	private String petName;
+
+	public String getLastName() {
+		return this.lastName;
+	}
+
+	public void setLastName(String lastName) {
+		this.lastName = trim(lastName);
+	}
+
+	public String getFirstName() {
+		return this.firstName;
+	}
+
+	public void setFirstName(String firstName) {
+		this.firstName = trim(firstName);
+	}
+
+	public String getTelephone() {
+		return this.telephone;
+	}
+
+	public void setTelephone(String telephone) {
+		String digits = (telephone != null) ? telephone.replaceAll("\\D", "") : null;
+		this.telephone = trim(digits);
+	}
+
+	public String getCity() {
+		return this.city;
+	}
+
+	public void setCity(String city) {
+		this.city = trim(city);
+	}
+
+	public String getPetName() {
+		return this.petName;
+	}
+
+	public void setPetName(String petName) {
+		this.petName = trim(petName);
+	}
+
+	/**
+	 * Whether no criterion is filled in.
+	 */
+	public boolean isEmpty() {
+		return this.lastName == null && this.firstName == null && this.telephone == null && this.city == null
+				&& this.petName == null;
+	}
+
+	private static String trim(String value) {
+		return StringUtils.hasText(value) ? value.trim() : null;
+	}
+
+}
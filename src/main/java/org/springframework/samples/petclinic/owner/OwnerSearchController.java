@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Searches owners by any combination of last name, first name, telephone, city and pet
+ * name, for the front desk.
+ */
+@Controller
+class OwnerSearchController {
+
+	private static final String VIEWS_OWNER_SEARCH = "owners/searchOwners";
+
+	private static final int PAGE_SIZE = 10;
+
+	private final OwnerSearchPlanner planner;
+
+	private final OwnerRepository owners;
+
+	OwnerSearchController(OwnerSearchPlanner planner, OwnerRepository owners) {
+		this.planner = planner;
+		this.owners = owners;
+	}
+
+	@GetMapping("/owners/search")
+	public String search(@ModelAttribute("search") OwnerSearch search, @RequestParam(required = false) String after,
+			Model model) {
+		if (search.isEmpty()) {
+			return VIEWS_OWNER_SEARCH;
+		}
+		List<Integer> ids = this.planner.findIds(this.planner.plan(search), OwnerCursor.decode(after), PAGE_SIZE + 1);
+		List<Owner> results = ids.isEmpty() ? Collections.emptyList()
+				: this.owners.findByIdIn(new ArrayList<>(ids.subList(0, Math.min(ids.size(), PAGE_SIZE))));
+		model.addAttribute("listOwners", results);
+		if (ids.size() > PAGE_SIZE && !results.isEmpty()) {
+			model.addAttribute("nextCursor", OwnerCursor.of(results.get(results.size() - 1)).encode());
+		}
+		return VIEWS_OWNER_SEARCH;
+	}
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.samples.petclinic.model.SearchKeys;
+
+/**
+ * The order in which an {@link OwnerSearch} applies its criteria. The first criterion
+ * drives the query: its index is read to find the candidate owners, which the other
+ * criteria then filter.
+ */
+final class OwnerSearchPlan {
+
+	/**
+	 * A criterion of the search, with the condition it adds to the query and the index
+	 * that serves it. Criteria are declared from the usually most to the usually least
+	 * selective, which decides between criteria of equal estimates. The last name, first
+	 * name, city and pet name are matched by their {@link SearchKeys search keys},
+	 * ignoring case and accents; the telephone exactly.
+	 */
+	enum Criterion {
+
+		TELEPHONE("o.telephone = ?", false, "owners_telephone", OwnerSearch::getTelephone),
+
+		LAST_NAME("o.last_name_search LIKE ?", false, "owners_last_name_search",
+				(search) -> (search.getLastName() != null) ? searchKey(search.getLastName()) + "%" : null),
+
+		PET_NAME("p.name_search = ?", true, "pets_name_search", (search) -> searchKey(search.getPetName())),
+
+		FIRST_NAME("o.first_name_search = ?", false, "owners_first_name", (search) -> searchKey(search.getFirstName())),
+
+		CITY("o.city_search = ?", false, "owners_city", (search) -> searchKey(search.getCity()));
+
+		private final String condition;
+
+		private final boolean onPets;
+
+		private final String index;
+
+		private final Function<OwnerSearch, String> value;
+
+		Criterion(String condition, boolean onPets, String index, Function<OwnerSearch, String> value) {
+			this.condition = condition;
+			this.onPets = onPets;
+			this.index = index;
+			this.value = value;
+		}
+
+		/**
+		 * The condition on <code>owners o</code> or, for criteria {@link #isOnPets() on
+		 * pets}, on <code>pets p</code>.
+		 */
+		String getCondition() {
+			return this.condition;
+		}
+
+		String getIndex() {
+			return this.index;
+		}
+
+		boolean isOnPets() {
+			return this.onPets;
+		}
+
+		/**
+		 * The query parameter of this criterion for the given search, or {@code null} if
+		 * the criterion is not filled in.
+		 */
+		String valueOf(OwnerSearch search) {
+			return this.value.apply(search);
+		}
+
+		private static String searchKey(String text) {
+			return (text != null) ? SearchKeys.normalize(text) : null;
+		}
+
+	}
+
+	/**
+	 * A criterion with its query parameter and the estimated number of rows it matches on
+	 * its own.
+	 */
+	static final class Step {
+
+		private final Criterion criterion;
+
+		private final String value;
+
+		private final long estimate;
+
+		Step(Criterion criterion, String value, long estimate) {
+			this.criterion = criterion;
+			this.value = value;
+			this.estimate = estimate;
+		}
+
+		Criterion getCriterion() {
+			return this.criterion;
+		}
+
+		String getValue() {
+			return this.value;
+		}
+
+		long getEstimate() {
+			return this.estimate;
+		}
+
+		@Override
+		public String toString() {
+			return this.criterion + ((this.estimate >= 0) ? " (~" + this.estimate + ")" : "");
+		}
+
+	}
+
+	private static final Comparator<Step> MOST_SELECTIVE_FIRST = Comparator
+			.comparingLong((Step step) -> (step.estimate < 0) ? Long.MAX_VALUE : step.estimate)
+			.thenComparing(Step::getCriterion);
+
+	private final List<Step> steps;
+
+	private final boolean useIndex;
+
+	private OwnerSearchPlan(List<Step> steps, boolean useIndex) {
+		this.steps = steps;
+		this.useIndex = useIndex;
+	}
+
+	/**
+	 * Plan the given steps most selective first. Steps without an estimate go last.
+	 * @param steps the criteria that are filled in, with their estimates
+	 * @param useIndex whether the query should be told to use the index of the first
+	 * step, rather than let the database choose
+	 */
+	static OwnerSearchPlan of(List<Step> steps, boolean useIndex) {
+		List<Step> ordered = new ArrayList<>(steps);
+		ordered.sort(MOST_SELECTIVE_FIRST);
+		return new OwnerSearchPlan(Collections.unmodifiableList(ordered), useIndex);
+	}
+
+	/**
+	 * The criteria of the given search in their declared order, without estimates,
+	 * leaving the choice of index to the database.
+	 */
+	static OwnerSearchPlan unplanned(OwnerSearch search) {
+		List<Step> steps = new ArrayList<>();
+		for (Criterion criterion : Criterion.values()) {
+			String value = criterion.valueOf(search);
+			if (value != null) {
+				steps.add(new Step(criterion, value, -1));
+			}
+		}
+		return new OwnerSearchPlan(Collections.unmodifiableList(steps), false);
+	}
+
+	List<Step> getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * Whether the search is known to match nothing, because one of its criteria alone
+	 * matches nothing.
+	 */
+	boolean isEmpty() {
+		return this.steps.stream().anyMatch((step) -> step.estimate == 0);
+	}
+
+	boolean isUseIndex() {
+		return this.useIndex;
+	}
+
+	@Override
+	public String toString() {
+		return this.steps.stream().map(Step::toString)
+				.collect(Collectors.joining(" > ", "", this.useIndex ? " using index" : ""));
+	}
+
+}
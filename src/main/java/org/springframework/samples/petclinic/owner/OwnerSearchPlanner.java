@@ -0,0 +1,141 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerSearchPlan.Criterion;
+import org.springframework.samples.petclinic.owner.OwnerSearchPlan.Step;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link OwnerSearch}es, most selective criterion first. Before searching with more
+ * than one criterion, it counts the rows each criterion matches on its own, up to
+ * {@link #PROBE_LIMIT}, by reading a bounded range of that criterion's index. The query
+ * then reads the index of the criterion with the fewest matches and checks the other
+ * criteria only for the owners found there. On H2 and MySQL the query names that index
+ * when it is known to be selective, as their optimizers have no statistics on the values
+ * searched for.
+ * <p>
+ * Results are ordered like the search by last name, by last name search key and id, and
+ * pages continue after an {@link OwnerCursor}.
+ */
+@Component
+class OwnerSearchPlanner {
+
+	private static final Log logger = LogFactory.getLog(OwnerSearchPlanner.class);
+
+	/**
+	 * The number of matches above which a criterion counts as not selective.
+	 */
+	static final int PROBE_LIMIT = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	private final boolean indexHints;
+
+	OwnerSearchPlanner(JdbcTemplate jdbc, @Value("${database}") String database) {
+		this.jdbc = jdbc;
+		// H2 and MySQL share the USE INDEX syntax, HSQLDB has no index hints
+		this.indexHints = "h2".equals(database) || "mysql".equals(database);
+	}
+
+	/**
+	 * Estimate the criteria of the given search and order them most selective first.
+	 * Probing stops at the first criterion that matches nothing.
+	 * @param search the search to plan
+	 * @return the plan
+	 */
+	OwnerSearchPlan plan(OwnerSearch search) {
+		OwnerSearchPlan unplanned = OwnerSearchPlan.unplanned(search);
+		if (unplanned.getSteps().size() < 2) {
+			return unplanned;
+		}
+		List<Step> steps = new ArrayList<>();
+		boolean matchesNothing = false;
+		for (Step step : unplanned.getSteps()) {
+			long estimate = matchesNothing ? -1 : probe(step.getCriterion(), step.getValue());
+			matchesNothing |= estimate == 0;
+			steps.add(new Step(step.getCriterion(), step.getValue(), estimate));
+		}
+		OwnerSearchPlan plan = OwnerSearchPlan.of(steps, false);
+		if (this.indexHints && plan.getSteps().get(0).getEstimate() < PROBE_LIMIT) {
+			plan = OwnerSearchPlan.of(steps, true);
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Owner search plan: " + plan);
+		}
+		return plan;
+	}
+
+	private long probe(Criterion criterion, String value) {
+		String from = criterion.isOnPets() ? "pets p" : "owners o";
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM " + from + " WHERE "
+				+ criterion.getCondition() + " LIMIT " + PROBE_LIMIT + ") probe", Long.class, value);
+	}
+
+	/**
+	 * Find the ids of the owners matching the given plan.
+	 * @param plan the plan of the search
+	 * @param after return owners following this position, may be {@code null}
+	 * @param limit the maximum number of ids to return
+	 * @return the ids, ordered by last name search key and id
+	 */
+	List<Integer> findIds(OwnerSearchPlan plan, OwnerCursor after, int limit) {
+		if (plan.getSteps().isEmpty() || plan.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Criterion driving = plan.getSteps().get(0).getCriterion();
+		String hint = plan.isUseIndex() ? " USE INDEX (" + driving.getIndex() + ")" : "";
+		StringBuilder sql = new StringBuilder();
+		if (driving.isOnPets()) {
+			sql.append("SELECT DISTINCT o.id, o.last_name_search FROM pets p").append(hint)
+					.append(" JOIN owners o ON o.id = p.owner_id");
+		}
+		else {
+			sql.append("SELECT o.id, o.last_name_search FROM owners o").append(hint);
+		}
+		List<Object> args = new ArrayList<>();
+		String separator = " WHERE ";
+		for (Step step : plan.getSteps()) {
+			sql.append(separator);
+			if (step.getCriterion().isOnPets() && step.getCriterion() != driving) {
+				sql.append("EXISTS (SELECT 1 FROM pets p WHERE p.owner_id = o.id AND ")
+						.append(step.getCriterion().getCondition()).append(")");
+			}
+			else {
+				sql.append(step.getCriterion().getCondition());
+			}
+			args.add(step.getValue());
+			separator = " AND ";
+		}
+		if (after != null) {
+			sql.append(" AND (o.last_name_search > ? OR (o.last_name_search = ? AND o.id > ?))");
+			args.add(after.getLastNameSearch());
+			args.add(after.getLastNameSearch());
+			args.add(after.getId());
+		}
+		sql.append(" ORDER BY o.last_name_search, o.id LIMIT ").append(limit);
+		return this.jdbc.query(sql.toString(), (rs, row) -> rs.getInt(1), args.toArray());
+	}
+
+}
@@ -19,22 +19,22 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Transient;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.NamedEntity;
+import org.springframework.samples.petclinic.model.SearchKeys;
 import org.springframework.samples.petclinic.visit.Visit;
 
 /**
@@ -48,6 +48,9 @@ import org.springframework.samples.petclinic.visit.Visit;
 @Table(name = "pets")
 public class Pet extends NamedEntity {
 
+	private static final Comparator<Visit> VISIT_ORDER = Comparator.comparing(Visit::getDate,
+			Comparator.nullsLast(Comparator.reverseOrder()));
+
 	@Column(name = "birth_date")
 	@DateTimeFormat(pattern = "yyyy-MM-dd")
 	private LocalDate birthDate;
@@ -60,8 +63,14 @@ public class Pet extends NamedEntity {
 	@JoinColumn(name = "owner_id")
 	private Owner owner;
 
+	/**
+	 * The {@link SearchKeys search key} of the name, matched by the owner search.
+	 */
+	@Column(name = "name_search")
+	private String nameSearch;
+
 	@Transient
-	private Set<Visit> visits = new LinkedHashSet<>();
+	private List<Visit> visits = new ArrayList<>();
 
 	public void setBirthDate(LocalDate birthDate) {
 		this.birthDate = birthDate;
@@ -87,26 +96,45 @@ public class Pet extends NamedEntity {
 		this.owner = owner;
 	}
 
-	protected Set<Visit> getVisitsInternal() {
+	@PrePersist
+	@PreUpdate
+	void updateSearchKeys() {
+		this.nameSearch = SearchKeys.normalize(getName());
+	}
+
+	protected List<Visit> getVisitsInternal() {
 		if (this.visits == null) {
-			this.visits = new HashSet<>();
+			this.visits = new ArrayList<>();
 		}
 		return this.visits;
 	}
 
 	protected void setVisitsInternal(Collection<Visit> visits) {
-		this.visits = new LinkedHashSet<>(visits);
+		this.visits = new ArrayList<>(visits);
+		this.visits.sort(VISIT_ORDER);
 	}
 
+	/**
+	 * Return the visits of this pet, most recent first. The visits are sorted once when
+	 * they are set and kept in order when added, so this is a read-only view rather than
+	 * a sorted copy.
+	 * @return an unmodifiable view of the visits
+	 */
 	public List<Visit> getVisits() {
-		List<Visit> sortedVisits = new ArrayList<>(getVisitsInternal());
-		PropertyComparator.sort(sortedVisits, new MutableSortDefinition("date", false, false));
-		return Collections.unmodifiableList(sortedVisits);
+		return Collections.unmodifiableList(getVisitsInternal());
 	}
 
 	public void addVisit(Visit visit) {
-		getVisitsInternal().add(visit);
+		if (!getVisitsInternal().contains(visit)) {
+			getVisitsInternal().add(visit);
+			getVisitsInternal().sort(VISIT_ORDER);
+		}
 		visit.setPetId(this.getId());
 	}
 
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return Collections.singletonList(new PetSavedEvent(this));
+	}
+
 }
@@ -40,14 +40,17 @@ class PetController {
 
 	private final OwnerRepository owners;
 
-	public PetController(PetRepository pets, OwnerRepository owners) {
+	private final PetTypeCache petTypes;
+
+	public PetController(PetRepository pets, OwnerRepository owners, PetTypeCache petTypes) {
 		this.pets = pets;
 		this.owners = owners;
+		this.petTypes = petTypes;
 	}
 
 	@ModelAttribute("types")
 	public Collection<PetType> populatePetTypes() {
-		return this.pets.findPetTypes();
+		return this.petTypes.getTypesByName().values();
 	}
 
 	@ModelAttribute("owner")
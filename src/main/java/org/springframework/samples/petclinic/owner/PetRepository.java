@@ -15,12 +15,16 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 /**
  * Repository class for <code>Pet</code> domain objects All method names are compliant
  * with Spring Data naming conventions so this interface can easily be extended for Spring
@@ -35,10 +39,18 @@ import java.util.List;
 public interface PetRepository extends Repository<Pet, Integer> {
 
 	/**
-	 * Retrieve all {@link PetType}s from the data store.
+	 * Name of the query cache region holding the result of {@link #findPetTypes()}.
+	 */
+	String PET_TYPES_QUERY_REGION = "petTypeQueries";
+
+	/**
+	 * Retrieve all {@link PetType}s from the data store. The result is kept in the
+	 * Hibernate query cache region {@value #PET_TYPES_QUERY_REGION}.
 	 * @return a Collection of {@link PetType}s.
 	 */
 	@Query("SELECT ptype FROM PetType ptype ORDER BY ptype.name")
+	@QueryHints({ @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+			@QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = PET_TYPES_QUERY_REGION) })
 	@Transactional(readOnly = true)
 	List<PetType> findPetTypes();
 
@@ -51,9 +63,11 @@ public interface PetRepository extends Repository<Pet, Integer> {
 	Pet findById(Integer id);
 
 	/**
-	 * Save a {@link Pet} to the data store, either inserting or updating it.
+	 * Save a {@link Pet} to the data store, either inserting or updating it, and evict
+	 * the cached aggregate of its owner once the transaction commits.
 	 * @param pet the {@link Pet} to save
 	 */
+	@CacheEvict(value = "owners", key = "#p0.owner.id", condition = "#p0.owner != null")
 	void save(Pet pet);
 
 }
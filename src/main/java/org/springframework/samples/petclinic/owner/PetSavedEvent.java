@@ -0,0 +1,35 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+/**
+ * Published by Spring Data whenever a {@link Pet} is passed to
+ * {@link PetRepository#save(Pet)}, so that derived structures can follow changes made
+ * through the application.
+ */
+public class PetSavedEvent {
+
+	private final Pet pet;
+
+	public PetSavedEvent(Pet pet) {
+		this.pet = pet;
+	}
+
+	public Pet getPet() {
+		return this.pet;
+	}
+
+}
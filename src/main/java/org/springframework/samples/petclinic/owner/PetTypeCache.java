@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reference data cache for {@link PetType}s. Every pet form binds a type by name and
+ * renders the list of all types, so the <code>types</code> table is read once and kept in
+ * the <code>petTypes</code> cache as an immutable name to type map. Hit and miss counts
+ * are available from the cache statistics like for every other JCache cache.
+ * <p>
+ * The cached {@link PetType} instances are shared and must be treated as read-only.
+ *
+ * @see PetTypeChangeListener
+ */
+@Component
+class PetTypeCache {
+
+	static final String CACHE_NAME = "petTypes";
+
+	private final PetRepository pets;
+
+	PetTypeCache(PetRepository pets) {
+		this.pets = pets;
+	}
+
+	/**
+	 * Return all {@link PetType}s keyed by name, in name order.
+	 * @return an unmodifiable map
+	 */
+	@Cacheable(CACHE_NAME)
+	public Map<String, PetType> getTypesByName() {
+		Map<String, PetType> types = new LinkedHashMap<>();
+		for (PetType type : this.pets.findPetTypes()) {
+			types.put(type.getName(), type);
+		}
+		return Collections.unmodifiableMap(types);
+	}
+
+	/**
+	 * Discard the cached types right away, even within a transaction, so that the next
+	 * lookup reads them again. Callers decide when: {@link PetTypeChangeListener} calls
+	 * it once the change has committed.
+	 */
+	@CacheEvict(value = CACHE_NAME, allEntries = true, beforeInvocation = true)
+	public void evict() {
+	}
+
+}
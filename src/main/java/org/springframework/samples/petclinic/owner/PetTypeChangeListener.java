@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that invalidates the {@link PetTypeCache} whenever a
+ * {@link PetType} is inserted, updated or removed through JPA. Instantiated by Hibernate
+ * through the Spring bean container.
+ * <p>
+ * The listener is called when the change is flushed, so within a transaction the cache is
+ * only invalidated once it commits: evicting earlier would let a concurrent read cache
+ * the old types again, and nothing would evict them before the next change.
+ */
+class PetTypeChangeListener {
+
+	private final ObjectProvider<PetTypeCache> petTypeCache;
+
+	PetTypeChangeListener(ObjectProvider<PetTypeCache> petTypeCache) {
+		this.petTypeCache = petTypeCache;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void onChange(PetType type) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					evict();
+				}
+			});
+		}
+		else {
+			evict();
+		}
+	}
+
+	private void evict() {
+		this.petTypeCache.ifAvailable(PetTypeCache::evict);
+	}
+
+}
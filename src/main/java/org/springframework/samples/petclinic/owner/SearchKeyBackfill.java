@@ -0,0 +1,95 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.samples.petclinic.model.SearchKeys;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills in the search keys of owners and pets stored before the search key columns
+ * existed. The MySQL schema adds the columns to an existing database without values, and
+ * the keys cannot be computed in SQL because {@link SearchKeys} also strips accents. A
+ * {@link BulkLoadEvent} is published when rows were updated, so that the indexes are
+ * rebuilt with the new keys.
+ */
+@Component
+class SearchKeyBackfill implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(SearchKeyBackfill.class);
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final JdbcTemplate jdbc;
+
+	private final ApplicationEventPublisher events;
+
+	SearchKeyBackfill(JdbcTemplate jdbc, ApplicationEventPublisher events) {
+		this.jdbc = jdbc;
+		this.events = events;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		int owners = backfillOwners();
+		int pets = backfillPets();
+		if (owners + pets > 0) {
+			this.events.publishEvent(new BulkLoadEvent("search-keys"));
+			logger.info("Filled in the search keys of " + owners + " owners and " + pets + " pets");
+		}
+	}
+
+	int backfillOwners() {
+		return backfill(
+				"SELECT id, first_name, last_name, city FROM owners "
+						+ "WHERE last_name_search IS NULL OR first_name_search IS NULL OR city_search IS NULL",
+				"UPDATE owners SET last_name_search = ?, first_name_search = ?, city_search = ? WHERE id = ?",
+				(rs, rowNum) -> new Object[] { SearchKeys.normalize(rs.getString("last_name")),
+						SearchKeys.normalize(rs.getString("first_name")), SearchKeys.normalize(rs.getString("city")),
+						rs.getInt("id") });
+	}
+
+	int backfillPets() {
+		return backfill("SELECT id, name FROM pets WHERE name_search IS NULL",
+				"UPDATE pets SET name_search = ? WHERE id = ?",
+				(rs, rowNum) -> new Object[] { SearchKeys.normalize(rs.getString("name")), rs.getInt("id") });
+	}
+
+	private int backfill(String select, String update, RowMapper<Object[]> keys) {
+		int updated = 0;
+		List<Object[]> batch;
+		do {
+			// every updated row gets non-null keys, so each query returns the next rows
+			batch = this.jdbc.query(select + " ORDER BY id LIMIT " + BATCH_SIZE, keys);
+			if (!batch.isEmpty()) {
+				this.jdbc.batchUpdate(update, batch);
+				updated += batch.size();
+			}
+		}
+		while (batch.size() == BATCH_SIZE);
+		return updated;
+	}
+
+}
@@ -15,6 +15,7 @@
  */
 package org.springframework.samples.petclinic.owner;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.stereotype.Controller;
@@ -59,7 +60,8 @@ class VisitController {
 	@ModelAttribute("visit")
 	public Visit loadPetWithVisit(@PathVariable("petId") int petId, Map<String, Object> model) {
 		Pet pet = this.pets.findById(petId);
-		pet.setVisitsInternal(this.visits.findByPetId(petId));
+		pet.setVisitsInternal(
+				this.visits.findByPetId(petId, PageRequest.of(0, VisitHistoryController.PAGE_SIZE)).getContent());
 		model.put("pet", pet);
 		Visit visit = new Visit();
 		pet.addVisit(visit);
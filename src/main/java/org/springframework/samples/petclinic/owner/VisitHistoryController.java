@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * The visit history of a pet, most recent first, a page at a time and optionally between
+ * two dates. The owner details page shows the first page of every pet; its "load more"
+ * links fetch the following pages with <code>X-Requested-With: XMLHttpRequest</code> and
+ * get only the table rows back. A pet that does not exist, or does not belong to the
+ * owner of the URL, is not found.
+ */
+@Controller
+class VisitHistoryController {
+
+	/**
+	 * Visits per page, and visits per pet on the owner details page.
+	 */
+	static final int PAGE_SIZE = 5;
+
+	private static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+
+	private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
+	private final VisitRepository visits;
+
+	private final PetRepository pets;
+
+	VisitHistoryController(VisitRepository visits, PetRepository pets) {
+		this.visits = visits;
+		this.pets = pets;
+	}
+
+	@GetMapping("/owners/{ownerId}/pets/{petId}/visits")
+	String showVisits(@PathVariable("ownerId") int ownerId, @PathVariable("petId") int petId,
+			@RequestParam(defaultValue = "0") int page,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestHeader(name = "X-Requested-With", required = false) String requestedWith, Model model) {
+		Pet pet = this.pets.findById(petId);
+		if (pet == null || pet.getOwner() == null || pet.getOwner().getId() != ownerId) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet " + petId + " of owner " + ownerId);
+		}
+		Pageable pageable = PageRequest.of(Math.max(page, 0), PAGE_SIZE);
+		Slice<Visit> visits = (from == null && to == null) ? this.visits.findByPetId(petId, pageable)
+				: this.visits.findByPetIdAndDateBetween(petId, (from != null) ? from : EARLIEST,
+						(to != null) ? to : LATEST, pageable);
+		model.addAttribute("ownerId", ownerId);
+		model.addAttribute("petId", petId);
+		model.addAttribute("from", from);
+		model.addAttribute("to", to);
+		model.addAttribute("visits", visits.getContent());
+		model.addAttribute("nextPage", visits.hasNext() ? pageable.getPageNumber() + 1 : null);
+		if ("XMLHttpRequest".equals(requestedWith)) {
+			return "pets/visitHistory :: visits";
+		}
+		model.addAttribute("pet", pet);
+		return "pets/visitHistory";
+	}
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.time.LocalDate;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes the {@link VisitRollups} to the actuator: the <code>visitrollups</code>
+ * endpoint and the <code>petclinic.visits.today</code> gauge, which reads one rollup row
+ * per pet type when it is sampled.
+ */
+@Configuration(proxyBeanMethods = false)
+class ReportConfiguration {
+
+	@Bean
+	VisitRollupsEndpoint visitRollupsEndpoint(VisitRollups rollups) {
+		return new VisitRollupsEndpoint(rollups);
+	}
+
+	@Bean
+	MeterBinder visitRollupsMetrics(VisitRollups rollups) {
+		return (registry) -> Gauge.builder("petclinic.visits.today", rollups, (r) -> r.visitsOn(LocalDate.now()))
+				.description("Visits recorded for today").baseUnit("visits").register(registry);
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The visits of a date range, per day and per pet type.
+ */
+public class VisitReport {
+
+	private final LocalDate from;
+
+	private final LocalDate to;
+
+	private final long total;
+
+	private final List<Day> days;
+
+	private final List<Count> petTypes;
+
+	VisitReport(LocalDate from, LocalDate to, long total, List<Day> days, List<Count> petTypes) {
+		this.from = from;
+		this.to = to;
+		this.total = total;
+		this.days = days;
+		this.petTypes = petTypes;
+	}
+
+	public LocalDate getFrom() {
+		return this.from;
+	}
+
+	public LocalDate getTo() {
+		return this.to;
+	}
+
+	public long getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * Every day of the range, oldest first, including days without visits.
+	 */
+	public List<Day> getDays() {
+		return this.days;
+	}
+
+	/**
+	 * The pet types with visits in the range, most visited first.
+	 */
+	public List<Count> getPetTypes() {
+		return this.petTypes;
+	}
+
+	/**
+	 * The number of visits on one day.
+	 */
+	public static class Day {
+
+		private final LocalDate date;
+
+		private final long visits;
+
+		Day(LocalDate date, long visits) {
+			this.date = date;
+			this.visits = visits;
+		}
+
+		public LocalDate getDate() {
+			return this.date;
+		}
+
+		public long getVisits() {
+			return this.visits;
+		}
+
+	}
+
+	/**
+	 * The number of visits of one named group, such as a pet type.
+	 */
+	public static class Count {
+
+		private final String name;
+
+		private final long visits;
+
+		Count(String name, long visits) {
+			this.name = name;
+			this.visits = visits;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public long getVisits() {
+			return this.visits;
+		}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Clinic-wide visit counts as JSON, read from the {@link VisitRollups}:
+ * <code>/api/reports/visits?from=2013-01-01&amp;to=2013-01-31</code>. Both dates are
+ * inclusive and default to the last 30 days.
+ */
+@RestController
+class VisitReportController {
+
+	static final int DEFAULT_DAYS = 30;
+
+	static final int MAX_DAYS = 366;
+
+	private final VisitRollups rollups;
+
+	VisitReportController(VisitRollups rollups) {
+		this.rollups = rollups;
+	}
+
+	@GetMapping("/api/reports/visits")
+	VisitReport visits(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+		if (to == null) {
+			to = (from != null) ? from.plusDays(DEFAULT_DAYS - 1) : LocalDate.now();
+		}
+		if (from == null) {
+			from = to.minusDays(DEFAULT_DAYS - 1);
+		}
+		if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"from must not be after to, and the range at most " + MAX_DAYS + " days");
+		}
+		Map<LocalDate, Long> perDay = this.rollups.visitsPerDay(from, to);
+		List<VisitReport.Day> days = perDay.entrySet().stream()
+				.map((day) -> new VisitReport.Day(day.getKey(), day.getValue())).collect(Collectors.toList());
+		long total = perDay.values().stream().mapToLong(Long::longValue).sum();
+		return new VisitReport(from, to, total, days, this.rollups.visitsPerPetType(from, to));
+	}
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.io.Closeable;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitSavedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Pre-aggregated visit counts per day and pet type, in the <code>visit_rollups</code>
+ * table, so that reports read at most one row per day and pet type however many visits
+ * there are. Every visit {@link VisitSavedEvent#isCreated() created} through the
+ * application is queued once its transaction has committed, and a background thread adds
+ * the queued visits to their rows in batches, so saving a visit never waits for the
+ * rollups.
+ * <p>
+ * A {@link #rebuild() rebuild} recounts the visits up to the highest visit id, and
+ * records that id in <code>visit_rollups_state</code> in the same transaction. Increments
+ * skip the visits at or below it, as the rebuild has already counted them. Both lock the
+ * <code>visit_rollups_state</code> row first, so they are applied one after the other
+ * across all application instances sharing the database. A visit whose transaction
+ * commits during a rebuild with an id lower than the highest one is only counted by the
+ * next rebuild.
+ * <p>
+ * The rollups are rebuilt at startup and after every {@link BulkLoadEvent}, which picks
+ * up generated and imported rows. Visits added or changed in any other way, and pets
+ * changing type, are only counted after the next rebuild; so are queued visits dropped
+ * because the queue was full, which triggers one.
+ */
+@Component
+class VisitRollups implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(VisitRollups.class);
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final Increment REBUILD = new Increment(0, null, 0);
+
+	private static final String LOCK = "UPDATE visit_rollups_state SET max_visit_id = max_visit_id";
+
+	private static final String INCREMENT = "UPDATE visit_rollups SET visits = visits + 1 "
+			+ "WHERE visit_date = ? AND pet_type_id = (SELECT type_id FROM pets WHERE id = ?)";
+
+	private static final String INSERT = "INSERT INTO visit_rollups (visit_date, pet_type_id, visits) "
+			+ "SELECT ?, type_id, 1 FROM pets WHERE id = ?";
+
+	private static final String REBUILD_ROLLUPS = "INSERT INTO visit_rollups (visit_date, pet_type_id, visits) "
+			+ "SELECT v.visit_date, p.type_id, COUNT(*) FROM visits v JOIN pets p ON p.id = v.pet_id "
+			+ "WHERE v.visit_date IS NOT NULL AND v.id <= ? GROUP BY v.visit_date, p.type_id";
+
+	private static final String PER_DAY = "SELECT visit_date, SUM(visits) FROM visit_rollups "
+			+ "WHERE visit_date BETWEEN ? AND ? GROUP BY visit_date";
+
+	private static final String PER_PET_TYPE = "SELECT t.name, SUM(r.visits) FROM visit_rollups r "
+			+ "JOIN types t ON t.id = r.pet_type_id WHERE r.visit_date BETWEEN ? AND ? "
+			+ "GROUP BY t.name ORDER BY SUM(r.visits) DESC, t.name";
+
+	private final JdbcTemplate jdbc;
+
+	private final TransactionTemplate transaction;
+
+	private final BlockingQueue<Increment> queue;
+
+	private final AtomicBoolean overflowed = new AtomicBoolean();
+
+	private final Thread worker = new Thread(this::run, "visit-rollups");
+
+	private volatile boolean running;
+
+	private volatile boolean rebuilding;
+
+	private volatile Instant lastRebuild;
+
+	VisitRollups(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+			@Value("${petclinic.reports.queue-capacity:10000}") int queueCapacity) {
+		this.jdbc = jdbc;
+		this.transaction = new TransactionTemplate(transactionManager);
+		this.queue = new LinkedBlockingQueue<>(queueCapacity);
+		this.worker.setDaemon(true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void onApplicationReady() {
+		start();
+		rebuild();
+	}
+
+	/**
+	 * Start applying queued visits.
+	 */
+	synchronized void start() {
+		if (!this.running) {
+			this.running = true;
+			this.worker.start();
+		}
+	}
+
+	@EventListener(BulkLoadEvent.class)
+	void onBulkLoad() {
+		rebuild();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void onVisitSaved(VisitSavedEvent event) {
+		Visit visit = event.getVisit();
+		if (!event.isCreated() || visit.getId() == null || visit.getDate() == null || visit.getPetId() == null) {
+			return;
+		}
+		if (!this.queue.offer(new Increment(visit.getId(), visit.getDate(), visit.getPetId()))
+				&& this.overflowed.compareAndSet(false, true)) {
+			logger.warn("Visit rollups queue full, the rollups will be rebuilt from the visits");
+		}
+	}
+
+	/**
+	 * Queue a recount of the rollups from all visits. Reports keep reading the previous
+	 * counts until it commits.
+	 */
+	void rebuild() {
+		if (!this.queue.offer(REBUILD)) {
+			this.overflowed.set(true);
+		}
+	}
+
+	private void run() {
+		List<Increment> batch = new ArrayList<>(BATCH_SIZE);
+		while (this.running || !this.queue.isEmpty()) {
+			try {
+				Increment first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					this.queue.drainTo(batch, BATCH_SIZE - 1);
+				}
+				if (this.overflowed.getAndSet(false)) {
+					batch.add(REBUILD);
+				}
+				if (batch.removeIf((increment) -> increment == REBUILD)) {
+					recount();
+				}
+				if (!batch.isEmpty()) {
+					this.transaction.executeWithoutResult((status) -> apply(batch));
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (RuntimeException ex) {
+				logger.error("Could not update the visit rollups, " + batch.size() + " visits are missing until the"
+						+ " next rebuild", ex);
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void apply(List<Increment> batch) {
+		this.jdbc.update(LOCK);
+		int counted = this.jdbc.queryForObject("SELECT max_visit_id FROM visit_rollups_state", Integer.class);
+		for (Increment increment : batch) {
+			if (increment.visitId > counted) {
+				Date date = Date.valueOf(increment.date);
+				if (this.jdbc.update(INCREMENT, date, increment.petId) == 0) {
+					this.jdbc.update(INSERT, date, increment.petId);
+				}
+			}
+		}
+	}
+
+	private void recount() {
+		this.rebuilding = true;
+		try {
+			long start = System.nanoTime();
+			this.transaction.executeWithoutResult((status) -> {
+				this.jdbc.update(LOCK);
+				int maxVisitId = this.jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM visits", Integer.class);
+				this.jdbc.update("DELETE FROM visit_rollups");
+				this.jdbc.update(REBUILD_ROLLUPS, maxVisitId);
+				this.jdbc.update("UPDATE visit_rollups_state SET max_visit_id = ?", maxVisitId);
+			});
+			this.lastRebuild = Instant.now();
+			logger.info("Rebuilt " + size() + " visit rollups in "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		}
+		finally {
+			this.rebuilding = false;
+		}
+	}
+
+	/**
+	 * The number of visits on every day of the given range, including days without
+	 * visits, oldest first.
+	 */
+	Map<LocalDate, Long> visitsPerDay(LocalDate from, LocalDate to) {
+		Map<LocalDate, Long> days = new TreeMap<>();
+		for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+			days.put(day, 0L);
+		}
+		this.jdbc.query(PER_DAY, (rs) -> {
+			days.put(rs.getDate(1).toLocalDate(), rs.getLong(2));
+		}, Date.valueOf(from), Date.valueOf(to));
+		return days;
+	}
+
+	/**
+	 * The number of visits per pet type in the given range, most visited first. Pet types
+	 * without visits are left out.
+	 */
+	List<VisitReport.Count> visitsPerPetType(LocalDate from, LocalDate to) {
+		return this.jdbc.query(PER_PET_TYPE, (rs, row) -> new VisitReport.Count(rs.getString(1), rs.getLong(2)),
+				Date.valueOf(from), Date.valueOf(to));
+	}
+
+	/**
+	 * The number of visits on the given day.
+	 */
+	long visitsOn(LocalDate day) {
+		return this.jdbc.queryForObject("SELECT COALESCE(SUM(visits), 0) FROM visit_rollups WHERE visit_date = ?",
+				Long.class, Date.valueOf(day));
+	}
+
+	int size() {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM visit_rollups", Integer.class);
+	}
+
+	boolean isRebuilding() {
+		return this.rebuilding;
+	}
+
+	/**
+	 * When the last rebuild completed, {@code null} if there was none.
+	 */
+	Instant getLastRebuild() {
+		return this.lastRebuild;
+	}
+
+	/**
+	 * The number of visits waiting to be counted.
+	 */
+	int getQueued() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Stop once the visits still queued are counted.
+	 */
+	@Override
+	public void close() {
+		this.running = false;
+		try {
+			this.worker.join(TimeUnit.SECONDS.toMillis(30));
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Increment {
+
+		private final int visitId;
+
+		private final LocalDate date;
+
+		private final int petId;
+
+		Increment(int visitId, LocalDate date, int petId) {
+			this.visitId = visitId;
+			this.date = date;
+			this.petId = petId;
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * The <code>visitrollups</code> actuator endpoint: <code>GET</code> shows the state of
+ * the visit rollups, <code>POST</code> queues a recount from the visits.
+ */
+@Endpoint(id = "visitrollups")
+class VisitRollupsEndpoint {
+
+	private final VisitRollups rollups;
+
+	VisitRollupsEndpoint(VisitRollups rollups) {
+		this.rollups = rollups;
+	}
+
+	@ReadOperation
+	Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("rows", this.rollups.size());
+		status.put("queued", this.rollups.getQueued());
+		status.put("rebuilding", this.rollups.isRebuilding());
+		status.put("lastRebuild", this.rollups.getLastRebuild());
+		return status;
+	}
+
+	@WriteOperation
+	Map<String, Object> rebuild() {
+		this.rollups.rebuild();
+		return status();
+	}
+
+}
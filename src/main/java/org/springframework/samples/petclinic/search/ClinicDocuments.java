@@ -0,0 +1,202 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.util.StringUtils;
+
+/**
+ * Reads owners, pets and visits with plain JDBC and turns them into {@link ClinicIndex}
+ * documents. Pets and visits carry the names of their owner (and pet), and owners the
+ * names of their pets, so a search for "franklin leo" finds George Franklin's cat Leo.
+ */
+class ClinicDocuments {
+
+	private static final String OWNERS = "SELECT o.id, o.first_name, o.last_name, o.address, o.city, o.telephone"
+			+ " FROM owners o WHERE o.id IN (:ids)";
+
+	private static final String PET_NAMES = "SELECT owner_id, name FROM pets WHERE owner_id IN (:ids) ORDER BY name";
+
+	private static final String PETS = "SELECT p.id, p.name, t.name AS type, o.id AS owner_id, o.first_name,"
+			+ " o.last_name FROM pets p JOIN types t ON t.id = p.type_id JOIN owners o ON o.id = p.owner_id"
+			+ " WHERE p.id IN (:ids)";
+
+	private static final String VISITS = "SELECT v.id, v.visit_date, v.description, p.id AS pet_id, p.name AS pet_name,"
+			+ " o.id AS owner_id, o.first_name, o.last_name FROM visits v JOIN pets p ON p.id = v.pet_id"
+			+ " JOIN owners o ON o.id = p.owner_id WHERE v.id IN (:ids)";
+
+	private final NamedParameterJdbcTemplate jdbc;
+
+	ClinicDocuments(JdbcTemplate jdbc) {
+		this.jdbc = new NamedParameterJdbcTemplate(jdbc);
+	}
+
+	/**
+	 * The ids of a table following the given one, in order, to read a whole table in
+	 * batches.
+	 * @param type the document type whose table to read
+	 * @param afterId the last id of the previous batch, 0 for the first
+	 * @param limit the batch size
+	 */
+	List<Integer> idsAfter(String type, int afterId, int limit) {
+		return this.jdbc.queryForList("SELECT id FROM " + table(type) + " WHERE id > :after ORDER BY id LIMIT :limit",
+				new MapSqlParameterSource("after", afterId).addValue("limit", limit), Integer.class);
+	}
+
+	/**
+	 * The pets of the given owners.
+	 */
+	List<Integer> petsOfOwners(Collection<Integer> ownerIds) {
+		return ids("SELECT id FROM pets WHERE owner_id IN (:ids)", ownerIds);
+	}
+
+	/**
+	 * The owners of the given pets.
+	 */
+	List<Integer> ownersOfPets(Collection<Integer> petIds) {
+		return ids("SELECT DISTINCT owner_id FROM pets WHERE id IN (:ids) AND owner_id IS NOT NULL", petIds);
+	}
+
+	/**
+	 * The visits of the given pets.
+	 */
+	List<Integer> visitsOfPets(Collection<Integer> petIds) {
+		return ids("SELECT id FROM visits WHERE pet_id IN (:ids)", petIds);
+	}
+
+	/**
+	 * Load the documents of the given owners, pets or visits. Ids that are not in the
+	 * database have no document.
+	 * @return the documents by id
+	 */
+	Map<Integer, Document> load(String type, Collection<Integer> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyMap();
+		}
+		switch (type) {
+		case ClinicIndex.OWNER:
+			return owners(ids);
+		case ClinicIndex.PET:
+			return pets(ids);
+		case ClinicIndex.VISIT:
+			return visits(ids);
+		default:
+			throw new IllegalArgumentException("Unknown document type: " + type);
+		}
+	}
+
+	private Map<Integer, Document> owners(Collection<Integer> ids) {
+		Map<Integer, StringBuilder> petNames = new HashMap<>();
+		this.jdbc.query(PET_NAMES, new MapSqlParameterSource("ids", ids), (rs) -> {
+			StringBuilder names = petNames.computeIfAbsent(rs.getInt("owner_id"), (id) -> new StringBuilder());
+			names.append(names.length() > 0 ? " " : "").append(rs.getString("name"));
+		});
+		Map<Integer, Document> documents = new LinkedHashMap<>();
+		this.jdbc.query(OWNERS, new MapSqlParameterSource("ids", ids), (rs) -> {
+			int id = rs.getInt("id");
+			String name = rs.getString("first_name") + " " + rs.getString("last_name");
+			String address = rs.getString("address");
+			String city = rs.getString("city");
+			String telephone = rs.getString("telephone");
+			StringBuilder pets = petNames.get(id);
+			Map<String, String> fields = new HashMap<>();
+			fields.put("name", name);
+			fields.put("address", address);
+			fields.put("city", city);
+			fields.put("telephone", telephone);
+			fields.put("petName", pets != null ? pets.toString() : null);
+			documents.put(id, ClinicIndex.document(ClinicIndex.OWNER, id, id, null, name,
+					join(address, city, telephone), fields));
+		});
+		return documents;
+	}
+
+	private Map<Integer, Document> pets(Collection<Integer> ids) {
+		Map<Integer, Document> documents = new LinkedHashMap<>();
+		this.jdbc.query(PETS, new MapSqlParameterSource("ids", ids), (rs) -> {
+			int id = rs.getInt("id");
+			String name = rs.getString("name");
+			String type = rs.getString("type");
+			String ownerName = rs.getString("first_name") + " " + rs.getString("last_name");
+			Map<String, String> fields = new HashMap<>();
+			fields.put("name", name);
+			fields.put("petType", type);
+			fields.put("ownerName", ownerName);
+			documents.put(id, ClinicIndex.document(ClinicIndex.PET, id, rs.getInt("owner_id"), id, name,
+					type + " of " + ownerName, fields));
+		});
+		return documents;
+	}
+
+	private Map<Integer, Document> visits(Collection<Integer> ids) {
+		Map<Integer, Document> documents = new LinkedHashMap<>();
+		this.jdbc.query(VISITS, new MapSqlParameterSource("ids", ids), (rs) -> {
+			int id = rs.getInt("id");
+			Date date = rs.getDate("visit_date");
+			String description = rs.getString("description");
+			String petName = rs.getString("pet_name");
+			Map<String, String> fields = new HashMap<>();
+			fields.put("description", description);
+			fields.put("petName", petName);
+			fields.put("ownerName", rs.getString("first_name") + " " + rs.getString("last_name"));
+			documents.put(id, ClinicIndex.document(ClinicIndex.VISIT, id, rs.getInt("owner_id"), rs.getInt("pet_id"),
+					join(date != null ? date.toLocalDate().toString() : null, petName), description, fields));
+		});
+		return documents;
+	}
+
+	private List<Integer> ids(String sql, Collection<Integer> ids) {
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return this.jdbc.queryForList(sql, new MapSqlParameterSource("ids", ids), Integer.class);
+	}
+
+	private static String table(String type) {
+		switch (type) {
+		case ClinicIndex.OWNER:
+			return "owners";
+		case ClinicIndex.PET:
+			return "pets";
+		case ClinicIndex.VISIT:
+			return "visits";
+		default:
+			throw new IllegalArgumentException("Unknown document type: " + type);
+		}
+	}
+
+	private static String join(String... values) {
+		StringBuilder joined = new StringBuilder();
+		for (String value : values) {
+			if (StringUtils.hasText(value)) {
+				joined.append(joined.length() > 0 ? ", " : "").append(value);
+			}
+		}
+		return joined.toString();
+	}
+
+}
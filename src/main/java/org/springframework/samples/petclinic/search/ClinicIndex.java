@@ -0,0 +1,367 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.en.EnglishMinimalStemFilter;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Lucene index of owners, pets and visits in a local directory. Every owner, pet and
+ * visit is one document, identified by its type and id; documents are replaced as a whole
+ * by {@link #update(Document)}. Searches see changes once {@link #refresh()} has been
+ * called and survive a restart once they have been {@link #commit() committed}.
+ * <p>
+ * Text is split into words, lower-cased, folded to ASCII (so "muller" finds "Müller") and
+ * reduced to the singular. A search finds the documents containing every word of the
+ * query in any of the {@link #FIELDS searched fields}, ranked by relevance with names
+ * weighing more than descriptions and addresses.
+ */
+class ClinicIndex implements Closeable {
+
+	static final String OWNER = "owner";
+
+	static final String PET = "pet";
+
+	static final String VISIT = "visit";
+
+	static final Set<String> TYPES = Collections.unmodifiableSet(new TreeSet<>(Arrays.asList(OWNER, PET, VISIT)));
+
+	/**
+	 * The searched fields and their boosts.
+	 */
+	static final Map<String, Float> FIELDS;
+
+	static {
+		Map<String, Float> fields = new LinkedHashMap<>();
+		fields.put("name", 4f);
+		fields.put("petName", 2f);
+		fields.put("ownerName", 2f);
+		fields.put("description", 2f);
+		fields.put("petType", 1f);
+		fields.put("address", 1f);
+		fields.put("city", 1f);
+		fields.put("telephone", 1f);
+		FIELDS = Collections.unmodifiableMap(fields);
+	}
+
+	/**
+	 * Deepest result a search can page to.
+	 */
+	static final int MAX_RESULTS = 10000;
+
+	private static final String KEY = "key";
+
+	private static final String TYPE = "type";
+
+	private static final String ID = "id";
+
+	private static final String OWNER_ID = "ownerId";
+
+	private static final String PET_ID = "petId";
+
+	private static final String TITLE = "title";
+
+	private static final String SUMMARY = "summary";
+
+	private final Analyzer analyzer = createAnalyzer();
+
+	private final Path path;
+
+	private final boolean temporary;
+
+	private final Directory directory;
+
+	private final IndexWriter writer;
+
+	private final SearcherManager searchers;
+
+	/**
+	 * Open the index in the given directory, creating it if needed.
+	 */
+	ClinicIndex(Path path) {
+		this(path, false);
+	}
+
+	private ClinicIndex(Path path, boolean temporary) {
+		this.path = path;
+		this.temporary = temporary;
+		try {
+			this.directory = FSDirectory.open(path);
+			this.writer = new IndexWriter(this.directory, new IndexWriterConfig(this.analyzer));
+			this.searchers = new SearcherManager(this.writer, null);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Cannot open search index in " + path, ex);
+		}
+	}
+
+	/**
+	 * Create an empty index in a new temporary directory, deleted when the index is
+	 * closed.
+	 */
+	static ClinicIndex temporary() {
+		try {
+			return new ClinicIndex(Files.createTempDirectory("petclinic-search"), true);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException("Cannot create search index directory", ex);
+		}
+	}
+
+	/**
+	 * Create the document of an owner, pet or visit.
+	 * @param type {@link #OWNER}, {@link #PET} or {@link #VISIT}
+	 * @param id the id of the owner, pet or visit
+	 * @param ownerId the owner the document belongs to
+	 * @param petId the pet the document belongs to, {@code null} for owners
+	 * @param title the title of search hits
+	 * @param summary the summary of search hits
+	 * @param fields the searched text by field name, a subset of {@link #FIELDS}
+	 */
+	static Document document(String type, int id, int ownerId, Integer petId, String title, String summary,
+			Map<String, String> fields) {
+		Document document = new Document();
+		document.add(new StringField(KEY, key(type, id), Field.Store.NO));
+		document.add(new StringField(TYPE, type, Field.Store.YES));
+		document.add(new StoredField(ID, id));
+		document.add(new StoredField(OWNER_ID, ownerId));
+		if (petId != null) {
+			document.add(new StoredField(PET_ID, petId));
+		}
+		document.add(new StoredField(TITLE, title));
+		document.add(new StoredField(SUMMARY, summary));
+		fields.forEach((name, text) -> {
+			if (text != null) {
+				document.add(new TextField(name, text, Field.Store.NO));
+			}
+		});
+		return document;
+	}
+
+	private static String key(String type, int id) {
+		return type + ":" + id;
+	}
+
+	/**
+	 * Add or replace a document.
+	 */
+	void update(Document document) throws IOException {
+		IndexableField type = document.getField(TYPE);
+		IndexableField id = document.getField(ID);
+		this.writer.updateDocument(new Term(KEY, key(type.stringValue(), id.numericValue().intValue())), document);
+	}
+
+	/**
+	 * Add a document known not to be in the index yet, as during a rebuild.
+	 */
+	void add(Document document) throws IOException {
+		this.writer.addDocument(document);
+	}
+
+	void delete(String type, int id) throws IOException {
+		this.writer.deleteDocuments(new Term(KEY, key(type, id)));
+	}
+
+	void deleteAll() throws IOException {
+		this.writer.deleteAll();
+	}
+
+	/**
+	 * Make the changes so far visible to searches.
+	 */
+	void refresh() throws IOException {
+		this.searchers.maybeRefreshBlocking();
+	}
+
+	/**
+	 * Make the changes so far durable.
+	 */
+	void commit() throws IOException {
+		this.writer.commit();
+	}
+
+	/**
+	 * The number of documents visible to searches.
+	 */
+	int size() {
+		try {
+			IndexSearcher searcher = this.searchers.acquire();
+			try {
+				return searcher.getIndexReader().numDocs();
+			}
+			finally {
+				this.searchers.release(searcher);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	/**
+	 * Find the documents matching every word of a query, best matches first.
+	 * @param text the query
+	 * @param type only find documents of this type, {@code null} for all
+	 * @param page the zero-based page
+	 * @param size the number of hits per page
+	 */
+	SearchResults search(String text, String type, int page, int size) {
+		if ((page + 1L) * size > MAX_RESULTS) {
+			throw new IllegalArgumentException("Cannot page beyond " + MAX_RESULTS + " results");
+		}
+		Query query = parse(text, type);
+		if (query == null) {
+			return new SearchResults(page, size, 0, false, Collections.emptyList());
+		}
+		try {
+			IndexSearcher searcher = this.searchers.acquire();
+			try {
+				TopDocs top = searcher.search(query, (page + 1) * size);
+				List<SearchHit> hits = new ArrayList<>(size);
+				for (int i = page * size; i < top.scoreDocs.length; i++) {
+					ScoreDoc scoreDoc = top.scoreDocs[i];
+					hits.add(hit(searcher.doc(scoreDoc.doc), scoreDoc.score));
+				}
+				return new SearchResults(page, size, top.totalHits.value,
+						top.totalHits.relation == TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO, hits);
+			}
+			finally {
+				this.searchers.release(searcher);
+			}
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private Query parse(String text, String type) {
+		List<String> words = analyze(text);
+		if (words.isEmpty()) {
+			return null;
+		}
+		BooleanQuery.Builder query = new BooleanQuery.Builder();
+		for (String word : words) {
+			BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+			FIELDS.forEach((field, boost) -> anyField.add(new BoostQuery(new TermQuery(new Term(field, word)), boost),
+					Occur.SHOULD));
+			query.add(anyField.build(), Occur.MUST);
+		}
+		if (type != null) {
+			query.add(new TermQuery(new Term(TYPE, type)), Occur.FILTER);
+		}
+		return query.build();
+	}
+
+	private List<String> analyze(String text) {
+		List<String> words = new ArrayList<>();
+		if (text == null) {
+			return words;
+		}
+		try (TokenStream tokens = this.analyzer.tokenStream("query", text)) {
+			CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+			tokens.reset();
+			while (tokens.incrementToken()) {
+				if (!words.contains(term.toString())) {
+					words.add(term.toString());
+				}
+			}
+			tokens.end();
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return words;
+	}
+
+	private static SearchHit hit(Document document, float score) {
+		IndexableField petId = document.getField(PET_ID);
+		return new SearchHit(document.get(TYPE), document.getField(ID).numericValue().intValue(), score,
+				document.get(TITLE), document.get(SUMMARY), document.getField(OWNER_ID).numericValue().intValue(),
+				petId != null ? petId.numericValue().intValue() : null);
+	}
+
+	private static Analyzer createAnalyzer() {
+		return new Analyzer() {
+
+			@Override
+			protected TokenStreamComponents createComponents(String fieldName) {
+				Tokenizer source = new StandardTokenizer();
+				TokenStream result = new LowerCaseFilter(source);
+				result = new ASCIIFoldingFilter(result);
+				result = new EnglishMinimalStemFilter(result);
+				return new TokenStreamComponents(source, result);
+			}
+
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			this.searchers.close();
+			this.writer.close();
+		}
+		finally {
+			this.directory.close();
+			if (this.temporary) {
+				FileSystemUtils.deleteRecursively(this.path);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.lucene.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.samples.petclinic.owner.OwnerSavedEvent;
+import org.springframework.samples.petclinic.owner.PetSavedEvent;
+import org.springframework.samples.petclinic.visit.VisitSavedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps the {@link ClinicIndex} in step with the database. Saves of owners, pets and
+ * visits only queue the saved id once their transaction has committed; a single
+ * background thread takes the queued ids in batches, reads the rows back with JDBC and
+ * replaces their documents. A saved owner also refreshes its pets and their visits, and a
+ * saved pet its owner and visits, as their documents carry each other's names. A row that
+ * is gone is removed from the index.
+ * <p>
+ * Changes become searchable after each batch and are committed to disk at most once per
+ * commit interval. When the queue is full, queued changes are dropped and the index is
+ * {@link #rebuild() rebuilt} from the database instead, which is also how rows loaded in
+ * bulk get in, on every {@link BulkLoadEvent}.
+ */
+@Component
+@ConditionalOnProperty(name = "petclinic.search.enabled", havingValue = "true", matchIfMissing = true)
+class ClinicIndexer implements Closeable {
+
+	private static final Log logger = LogFactory.getLog(ClinicIndexer.class);
+
+	private static final int BATCH_SIZE = 500;
+
+	private static final int REBUILD_BATCH_SIZE = 1000;
+
+	private static final Change REBUILD = new Change("rebuild", 0);
+
+	private final ClinicIndex index;
+
+	private final ClinicDocuments documents;
+
+	private final BlockingQueue<Change> queue;
+
+	private final long commitIntervalNanos;
+
+	private final AtomicBoolean overflowed = new AtomicBoolean();
+
+	private final Thread worker = new Thread(this::run, "search-indexer");
+
+	private volatile boolean running;
+
+	private volatile boolean rebuilding;
+
+	private volatile Instant lastRebuild;
+
+	private boolean uncommitted;
+
+	private long lastCommit = System.nanoTime();
+
+	@Autowired
+	ClinicIndexer(ClinicIndex index, JdbcTemplate jdbc,
+			@Value("${petclinic.search.queue-capacity:10000}") int queueCapacity,
+			@Value("${petclinic.search.commit-interval:1s}") Duration commitInterval) {
+		this(index, new ClinicDocuments(jdbc), queueCapacity, commitInterval);
+	}
+
+	ClinicIndexer(ClinicIndex index, ClinicDocuments documents, int queueCapacity, Duration commitInterval) {
+		this.index = index;
+		this.documents = documents;
+		this.queue = new LinkedBlockingQueue<>(queueCapacity);
+		this.commitIntervalNanos = commitInterval.toNanos();
+		this.worker.setDaemon(true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void onApplicationReady() {
+		start();
+		if (this.index.size() == 0) {
+			rebuild();
+		}
+	}
+
+	/**
+	 * Start indexing queued changes.
+	 */
+	synchronized void start() {
+		if (!this.running) {
+			this.running = true;
+			this.worker.start();
+		}
+	}
+
+	@EventListener(BulkLoadEvent.class)
+	void onBulkLoad() {
+		rebuild();
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void onOwnerSaved(OwnerSavedEvent event) {
+		enqueue(ClinicIndex.OWNER, event.getOwner().getId());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void onPetSaved(PetSavedEvent event) {
+		enqueue(ClinicIndex.PET, event.getPet().getId());
+	}
+
+	@TransactionalEventListener(fallbackExecution = true)
+	void onVisitSaved(VisitSavedEvent event) {
+		enqueue(ClinicIndex.VISIT, event.getVisit().getId());
+	}
+
+	/**
+	 * Queue a full reload of the index from the database. Searches keep seeing the
+	 * previous documents until it is complete.
+	 */
+	void rebuild() {
+		if (!this.queue.offer(REBUILD)) {
+			this.overflowed.set(true);
+		}
+	}
+
+	private void enqueue(String type, Integer id) {
+		if (id != null && !this.queue.offer(new Change(type, id)) && this.overflowed.compareAndSet(false, true)) {
+			logger.warn("Search index queue full, the index will be rebuilt from the database");
+		}
+	}
+
+	boolean isRebuilding() {
+		return this.rebuilding;
+	}
+
+	/**
+	 * When the last rebuild completed, {@code null} if there was none.
+	 */
+	Instant getLastRebuild() {
+		return this.lastRebuild;
+	}
+
+	/**
+	 * The number of changes waiting to be indexed.
+	 */
+	int getQueued() {
+		return this.queue.size();
+	}
+
+	private void run() {
+		List<Change> batch = new ArrayList<>(BATCH_SIZE);
+		while (this.running || !this.queue.isEmpty()) {
+			try {
+				Change first = this.queue.poll(100, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					this.queue.drainTo(batch, BATCH_SIZE - 1);
+				}
+				if (this.overflowed.getAndSet(false)) {
+					this.queue.clear();
+					batch.clear();
+					batch.add(REBUILD);
+				}
+				if (batch.contains(REBUILD)) {
+					reload();
+				}
+				else if (!batch.isEmpty()) {
+					apply(batch);
+				}
+				if (this.uncommitted && System.nanoTime() - this.lastCommit >= this.commitIntervalNanos) {
+					commit();
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (IOException | RuntimeException ex) {
+				logger.error("Could not update the search index, " + batch.size() + " changes are missing until the"
+						+ " next rebuild", ex);
+			}
+			finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void apply(List<Change> batch) throws IOException {
+		Set<Integer> owners = new LinkedHashSet<>();
+		Set<Integer> pets = new LinkedHashSet<>();
+		Set<Integer> visits = new LinkedHashSet<>();
+		for (Change change : batch) {
+			if (ClinicIndex.OWNER.equals(change.type)) {
+				owners.add(change.id);
+			}
+			else if (ClinicIndex.PET.equals(change.type)) {
+				pets.add(change.id);
+			}
+			else {
+				visits.add(change.id);
+			}
+		}
+		Set<Integer> ownerDocuments = new LinkedHashSet<>(owners);
+		ownerDocuments.addAll(this.documents.ownersOfPets(pets));
+		Set<Integer> petDocuments = new LinkedHashSet<>(pets);
+		petDocuments.addAll(this.documents.petsOfOwners(owners));
+		Set<Integer> visitDocuments = new LinkedHashSet<>(visits);
+		visitDocuments.addAll(this.documents.visitsOfPets(petDocuments));
+		update(ClinicIndex.OWNER, ownerDocuments, owners);
+		update(ClinicIndex.PET, petDocuments, pets);
+		update(ClinicIndex.VISIT, visitDocuments, visits);
+		this.index.refresh();
+		this.uncommitted = true;
+	}
+
+	/**
+	 * Replace the documents of the given ids, and delete those of the saved ids that are
+	 * no longer in the database.
+	 */
+	private void update(String type, Collection<Integer> ids, Collection<Integer> saved) throws IOException {
+		Map<Integer, Document> loaded = this.documents.load(type, ids);
+		for (Document document : loaded.values()) {
+			this.index.update(document);
+		}
+		for (Integer id : saved) {
+			if (!loaded.containsKey(id)) {
+				this.index.delete(type, id);
+			}
+		}
+	}
+
+	private void reload() throws IOException {
+		this.rebuilding = true;
+		try {
+			long start = System.nanoTime();
+			this.index.deleteAll();
+			for (String type : ClinicIndex.TYPES) {
+				int lastId = 0;
+				List<Integer> ids;
+				do {
+					ids = this.documents.idsAfter(type, lastId, REBUILD_BATCH_SIZE);
+					for (Document document : this.documents.load(type, ids).values()) {
+						this.index.add(document);
+					}
+					if (!ids.isEmpty()) {
+						lastId = ids.get(ids.size() - 1);
+					}
+				}
+				while (ids.size() == REBUILD_BATCH_SIZE);
+			}
+			commit();
+			this.index.refresh();
+			this.lastRebuild = Instant.now();
+			logger.info("Search index rebuilt with " + this.index.size() + " documents in "
+					+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		}
+		finally {
+			this.rebuilding = false;
+		}
+	}
+
+	private void commit() throws IOException {
+		this.index.commit();
+		this.uncommitted = false;
+		this.lastCommit = System.nanoTime();
+	}
+
+	/**
+	 * Stop indexing once the changes still queued are indexed. The index is committed
+	 * when it is closed.
+	 */
+	@Override
+	public void close() {
+		this.running = false;
+		try {
+			this.worker.join(TimeUnit.SECONDS.toMillis(30));
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static final class Change {
+
+		private final String type;
+
+		private final int id;
+
+		Change(String type, int id) {
+			this.type = type;
+			this.id = id;
+		}
+
+	}
+
+}
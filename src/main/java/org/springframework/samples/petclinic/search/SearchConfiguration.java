@@ -0,0 +1,46 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.nio.file.Paths;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Full-text search over owners, pets and visits, unless
+ * <code>petclinic.search.enabled=false</code>. The index lives in
+ * <code>petclinic.search.directory</code>; without one, it is built from the database in
+ * a temporary directory at every start.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.search.enabled", havingValue = "true", matchIfMissing = true)
+class SearchConfiguration {
+
+	@Bean(destroyMethod = "close")
+	ClinicIndex clinicIndex(@Value("${petclinic.search.directory:}") String directory) {
+		return StringUtils.hasText(directory) ? new ClinicIndex(Paths.get(directory)) : ClinicIndex.temporary();
+	}
+
+	@Bean
+	SearchIndexEndpoint searchIndexEndpoint(ClinicIndex index, ClinicIndexer indexer) {
+		return new SearchIndexEndpoint(index, indexer);
+	}
+
+}
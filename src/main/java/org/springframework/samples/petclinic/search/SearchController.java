@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Full-text search over owners, pets and visits as JSON, best matches first:
+ * <code>/api/search?q=leo franklin&amp;type=pet&amp;page=0&amp;size=20</code>. Every word
+ * of the query must match; <code>type</code> (<code>owner</code>, <code>pet</code> or
+ * <code>visit</code>) is optional.
+ */
+@RestController
+@ConditionalOnProperty(name = "petclinic.search.enabled", havingValue = "true", matchIfMissing = true)
+class SearchController {
+
+	private static final int MAX_PAGE_SIZE = 100;
+
+	private final ClinicIndex index;
+
+	SearchController(ClinicIndex index) {
+		this.index = index;
+	}
+
+	@GetMapping("/api/search")
+	SearchResults search(@RequestParam("q") String query, @RequestParam(required = false) String type,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+		if (type != null && !ClinicIndex.TYPES.contains(type)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "type must be one of " + ClinicIndex.TYPES);
+		}
+		if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"page must not be negative and size between 1 and " + MAX_PAGE_SIZE);
+		}
+		if ((page + 1L) * size > ClinicIndex.MAX_RESULTS) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Cannot page beyond " + ClinicIndex.MAX_RESULTS + " results, refine the query");
+		}
+		return this.index.search(query, type, page, size);
+	}
+
+}
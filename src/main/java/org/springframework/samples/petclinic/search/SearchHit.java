@@ -0,0 +1,96 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+/**
+ * An owner, pet or visit found by a search, with enough to show and link it.
+ */
+public class SearchHit {
+
+	private final String type;
+
+	private final int id;
+
+	private final float score;
+
+	private final String title;
+
+	private final String summary;
+
+	private final int ownerId;
+
+	private final Integer petId;
+
+	SearchHit(String type, int id, float score, String title, String summary, int ownerId, Integer petId) {
+		this.type = type;
+		this.id = id;
+		this.score = score;
+		this.title = title;
+		this.summary = summary;
+		this.ownerId = ownerId;
+		this.petId = petId;
+	}
+
+	/**
+	 * The kind of hit: <code>owner</code>, <code>pet</code> or <code>visit</code>.
+	 */
+	public String getType() {
+		return this.type;
+	}
+
+	public int getId() {
+		return this.id;
+	}
+
+	/**
+	 * The relevance of the hit, only comparable within the same search.
+	 */
+	public float getScore() {
+		return this.score;
+	}
+
+	public String getTitle() {
+		return this.title;
+	}
+
+	public String getSummary() {
+		return this.summary;
+	}
+
+	public int getOwnerId() {
+		return this.ownerId;
+	}
+
+	/**
+	 * The pet of a pet or visit hit, {@code null} for owners.
+	 */
+	public Integer getPetId() {
+		return this.petId;
+	}
+
+	/**
+	 * The page showing the hit: the owner's details, which list the pets and visits.
+	 */
+	public String getPath() {
+		return "/owners/" + this.ownerId;
+	}
+
+	@Override
+	public String toString() {
+		return this.type + ":" + this.id + " " + this.title;
+	}
+
+}
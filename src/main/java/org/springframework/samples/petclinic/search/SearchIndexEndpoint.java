@@ -0,0 +1,57 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * The <code>searchindex</code> actuator endpoint: <code>GET</code> shows the state of the
+ * search index, <code>POST</code> rebuilds it from the database.
+ */
+@Endpoint(id = "searchindex")
+class SearchIndexEndpoint {
+
+	private final ClinicIndex index;
+
+	private final ClinicIndexer indexer;
+
+	SearchIndexEndpoint(ClinicIndex index, ClinicIndexer indexer) {
+		this.index = index;
+		this.indexer = indexer;
+	}
+
+	@ReadOperation
+	Map<String, Object> status() {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("documents", this.index.size());
+		status.put("queued", this.indexer.getQueued());
+		status.put("rebuilding", this.indexer.isRebuilding());
+		status.put("lastRebuild", this.indexer.getLastRebuild());
+		return status;
+	}
+
+	@WriteOperation
+	Map<String, Object> rebuild() {
+		this.indexer.rebuild();
+		return status();
+	}
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.util.List;
+
+/**
+ * One page of search hits, best first.
+ */
+public class SearchResults {
+
+	private final int page;
+
+	private final int size;
+
+	private final long total;
+
+	private final boolean totalApproximate;
+
+	private final List<SearchHit> hits;
+
+	SearchResults(int page, int size, long total, boolean totalApproximate, List<SearchHit> hits) {
+		this.page = page;
+		this.size = size;
+		this.total = total;
+		this.totalApproximate = totalApproximate;
+		this.hits = hits;
+	}
+
+	public int getPage() {
+		return this.page;
+	}
+
+	public int getSize() {
+		return this.size;
+	}
+
+	/**
+	 * The number of matching documents. Lucene stops counting exactly past the first
+	 * thousand matches, in which case this is a lower bound and
+	 * {@link #isTotalApproximate()} is {@code true}.
+	 */
+	public long getTotal() {
+		return this.total;
+	}
+
+	public boolean isTotalApproximate() {
+		return this.totalApproximate;
+	}
+
+	public List<SearchHit> getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Whether there may be another page.
+	 */
+	public boolean isHasNext() {
+		return (this.page + 1L) * this.size < this.total;
+	}
+
+}
@@ -16,40 +16,127 @@
 
 package org.springframework.samples.petclinic.system;
 
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.config.copy.DefaultCopierConfiguration;
+import org.ehcache.impl.copy.SerializingCopier;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
+import org.springframework.samples.petclinic.vet.Vet;
 
-import javax.cache.configuration.MutableConfiguration;
+import javax.cache.CacheManager;
 
 /**
  * Cache configuration intended for caches providing the JCache API. This configuration
- * creates the used cache for the application and enables statistics that become
+ * creates the used caches for the application and enables statistics that become
  * accessible via JMX.
+ * <p>
+ * Within the configuration object that is provided by the JCache API standard, there is
+ * only a very limited set of configuration options. The really relevant configuration
+ * options (like the size limit) are therefore set through Ehcache's native configuration,
+ * driven by {@link PetclinicCacheProperties}.
  */
 @Configuration(proxyBeanMethods = false)
 @EnableCaching
+@EnableConfigurationProperties(PetclinicCacheProperties.class)
 class CacheConfiguration {
 
 	@Bean
-	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer() {
+	public JCacheManagerCustomizer petclinicCacheConfigurationCustomizer(PetclinicCacheProperties properties) {
 		return cm -> {
-			cm.createCache("vets", cacheConfiguration());
+			createCache(cm, "vets", properties);
+			createCache(cm, "vetPages", properties);
+			createCache(cm, "petTypes", properties);
+			createCache(cm, "owners", properties);
+			createCache(cm, PaginationCounter.CACHE_NAME, properties);
+			// Hibernate second-level cache regions
+			createCache(cm, PetType.class.getName(), properties.getSpec("entities"));
+			createCache(cm, Specialty.class.getName(), properties.getSpec("entities"));
+			createCache(cm, Vet.class.getName(), properties.getSpec("entities"));
+			createCache(cm, Vet.class.getName() + ".specialties", properties.getSpec("entities"));
+			createCache(cm, PetRepository.PET_TYPES_QUERY_REGION, properties.getSpec("queryResults"));
+			createCache(cm, RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+					properties.getSpec("queryResults"));
+			createCache(cm, RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+					properties.getSpec("updateTimestamps"));
 		};
 	}
 
 	/**
-	 * Create a simple configuration that enable statistics via the JCache programmatic
-	 * configuration API.
-	 * <p>
-	 * Within the configuration object that is provided by the JCache API standard, there
-	 * is only a very limited set of configuration options. The really relevant
-	 * configuration options (like the size limit) must be set via a configuration
-	 * mechanism that is provided by the selected JCache implementation.
+	 * Defer cache puts and evictions made within a transaction until it commits, and drop
+	 * them if it rolls back, so that an eviction on save cannot be followed by a read
+	 * caching data that is not committed yet.
 	 */
-	private javax.cache.configuration.Configuration<Object, Object> cacheConfiguration() {
-		return new MutableConfiguration<>().setStatisticsEnabled(true);
+	@Bean
+	public CacheManagerCustomizer<JCacheCacheManager> petclinicTransactionAwareCacheCustomizer() {
+		return cacheManager -> cacheManager.setTransactionAware(true);
+	}
+
+	/**
+	 * Let Hibernate keep its second-level cache regions in the application's JCache
+	 * {@link CacheManager}, so they are sized by the same properties and reported by the
+	 * same metrics as the Spring caches.
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer petclinicHibernateCacheCustomizer(CacheManager cacheManager) {
+		return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+	}
+
+	private void createCache(CacheManager cm, String name, PetclinicCacheProperties properties) {
+		createCache(cm, name, properties.getSpec(name));
+	}
+
+	private void createCache(CacheManager cm, String name, PetclinicCacheProperties.Spec spec) {
+		cm.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(cacheConfiguration(spec)));
+		cm.enableStatistics(name, true);
+	}
+
+	/**
+	 * Create the native Ehcache configuration for one cache: a bounded heap tier, an
+	 * optional off-heap tier, time-to-live and time-to-idle expiry and the copy strategy
+	 * for keys and values.
+	 */
+	private org.ehcache.config.CacheConfiguration<Object, Object> cacheConfiguration(
+			PetclinicCacheProperties.Spec spec) {
+		ResourcePoolsBuilder resources = ResourcePoolsBuilder.newResourcePoolsBuilder().heap(spec.getHeapEntries(),
+				EntryUnit.ENTRIES);
+		if (spec.getOffHeap() != null) {
+			resources = resources.offheap(spec.getOffHeap().toMegabytes(), MemoryUnit.MB);
+		}
+		CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+				.newCacheConfigurationBuilder(Object.class, Object.class, resources);
+		if (spec.getTimeToLive() != null && spec.getTimeToIdle() != null) {
+			builder = builder.withExpiry(new TimeToLiveAndIdleExpiry(spec.getTimeToLive(), spec.getTimeToIdle()));
+		}
+		else if (spec.getTimeToLive() != null) {
+			builder = builder.withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(spec.getTimeToLive()));
+		}
+		else if (spec.getTimeToIdle() != null) {
+			builder = builder.withExpiry(ExpiryPolicyBuilder.timeToIdleExpiration(spec.getTimeToIdle()));
+		}
+		if (spec.isStoreByValue()) {
+			builder = builder
+					.withService(new DefaultCopierConfiguration<>(SerializingCopier.<Object>asCopierClass(),
+							DefaultCopierConfiguration.Type.KEY))
+					.withService(new DefaultCopierConfiguration<>(SerializingCopier.<Object>asCopierClass(),
+							DefaultCopierConfiguration.Type.VALUE));
+		}
+		return builder.build();
 	}
 
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+/**
+ * How paginated views obtain the total number of matching rows.
+ *
+ * @see PaginationCounter
+ */
+public enum CountMode {
+
+	/**
+	 * Run a <code>COUNT</code> query for every page that is rendered.
+	 */
+	EXACT,
+
+	/**
+	 * Run the <code>COUNT</code> query once per search and reuse its result until the
+	 * <code>paginationCounts</code> cache expires it. Totals may lag behind recent
+	 * inserts.
+	 */
+	CACHED,
+
+	/**
+	 * Do not count at all. Views only learn whether a further page exists, by fetching
+	 * one row more than the page size.
+	 */
+	NONE
+
+}
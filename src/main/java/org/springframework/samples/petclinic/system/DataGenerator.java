@@ -0,0 +1,263 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.samples.petclinic.model.SearchKeys;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Generates a deterministic, arbitrarily large data set of owners, pets and visits on top
+ * of the sample data, using JDBC batch inserts. Last names follow a Zipf distribution
+ * over {@link #LAST_NAMES}, so a few names are very common and most are rare, as in a
+ * real clinic. The same seed always produces the same rows.
+ * <p>
+ * Ids are assigned by the generator from ranges reserved with {@link IdReservations}, so
+ * the application keeps generating ids after them in either id generation mode. Supported
+ * databases are those of the <code>db/*</code> schemas: <code>h2</code>,
+ * <code>hsqldb</code> and <code>mysql</code>. For MySQL, add
+ * <code>rewriteBatchedStatements=true</code> to the JDBC URL for the batches to be sent
+ * as multi-row inserts.
+ */
+public class DataGenerator {
+
+	/**
+	 * Last names of the generated owners, most common first.
+	 */
+	public static final List<String> LAST_NAMES = Collections.unmodifiableList(Arrays.asList("Smith", "Johnson",
+			"Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez",
+			"Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Lee", "Perez",
+			"Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson", "Walker", "Young",
+			"Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores", "Green", "Adams", "Nelson",
+			"Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts", "Franklin", "Escobito", "Schroeder",
+			"Estaban", "McTavish", "Coleman", "Black", "Rodriquez", "Leary", "Douglas", "Stevens", "Jenkins", "Ortega",
+			"Wong", "Ohara", "Keller", "Novak", "Fischer", "Weber"));
+
+	private static final String[] FIRST_NAMES = { "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael",
+			"Linda", "David", "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas",
+			"Sarah", "Charles", "Karen", "George", "Betty", "Harold", "Eduardo", "Jean", "Maria", "Carlos", "Jeff",
+			"Peter", "Helen" };
+
+	private static final String[] PET_NAMES = { "Leo", "Basil", "Rosy", "Jewel", "Iggy", "George", "Samantha", "Max",
+			"Lucky", "Mulligan", "Freddy", "Sly", "Bella", "Luna", "Charlie", "Lucy", "Cooper", "Daisy", "Milo",
+			"Bailey", "Coco", "Rocky", "Zoe", "Oliver", "Loki", "Nala", "Simba", "Toby", "Ginger", "Pepper" };
+
+	private static final String[] STREETS = { "Main St.", "Oak Ave.", "Maple Dr.", "Cedar Ln.", "Park Blvd.",
+			"Lake St.", "Hill Rd.", "Elm St.", "Washington Ave.", "Sunset Blvd." };
+
+	private static final String[] CITIES = { "Madison", "Sun Prairie", "McFarland", "Windsor", "Monona", "Waunakee",
+			"Middleton", "Verona", "Fitchburg", "Stoughton" };
+
+	private static final String[] DESCRIPTIONS = { "rabies shot", "neutered", "spayed", "annual checkup",
+			"dental cleaning", "vaccination", "skin allergy", "limping", "ear infection", "weight check" };
+
+	private static final int BATCH_OWNERS = 1000;
+
+	private static final LocalDate TODAY = LocalDate.of(2021, 1, 1);
+
+	private final JdbcTemplate jdbc;
+
+	private final TransactionTemplate transaction;
+
+	private final String database;
+
+	private final long seed;
+
+	/**
+	 * Create a generator.
+	 * @param jdbc access to the database to fill
+	 * @param database the schema dialect: <code>h2</code>, <code>hsqldb</code> or
+	 * <code>mysql</code>
+	 * @param seed the seed of the random numbers, the same seed generates the same rows
+	 */
+	public DataGenerator(JdbcTemplate jdbc, String database, long seed) {
+		if (!"h2".equals(database) && !"hsqldb".equals(database) && !"mysql".equals(database)) {
+			throw new IllegalArgumentException("Unsupported database: " + database);
+		}
+		this.jdbc = jdbc;
+		// one transaction per batch instead of one commit per row
+		this.transaction = new TransactionTemplate(new DataSourceTransactionManager(jdbc.getDataSource()));
+		this.database = database;
+		this.seed = seed;
+	}
+
+	/**
+	 * Insert the given number of owners with their pets and visits.
+	 * @param owners the number of owners
+	 * @param petsPerOwner the number of pets of every owner
+	 * @param visitsPerPet the number of visits of every pet
+	 * @return the ids of the generated rows
+	 */
+	public Generated generate(int owners, int petsPerOwner, int visitsPerPet) {
+		SplittableRandom random = new SplittableRandom(this.seed);
+		double[] lastNameWeights = zipfCumulativeWeights(LAST_NAMES.size());
+		List<Integer> types = this.jdbc.queryForList("SELECT id FROM types ORDER BY id", Integer.class);
+		Generated generated = new Generated(reserve("owners", owners), owners, reserve("pets", owners * petsPerOwner),
+				owners * petsPerOwner, reserve("visits", owners * petsPerOwner * visitsPerPet),
+				owners * petsPerOwner * visitsPerPet);
+
+		List<Object[]> ownerRows = new ArrayList<>();
+		List<Object[]> petRows = new ArrayList<>();
+		List<Object[]> visitRows = new ArrayList<>();
+		int petId = generated.getFirstPetId();
+		int visitId = generated.getFirstVisitId();
+		for (int i = 0; i < owners; i++) {
+			int ownerId = generated.getFirstOwnerId() + i;
+			String lastName = LAST_NAMES.get(zipf(random, lastNameWeights));
+			String firstName = pick(random, FIRST_NAMES);
+			String street = (1 + random.nextInt(9999)) + " " + pick(random, STREETS);
+			String city = pick(random, CITIES);
+			ownerRows.add(new Object[] { ownerId, firstName, lastName, street, city,
+					String.valueOf(6080000000L + random.nextInt(10000000)), SearchKeys.normalize(lastName),
+					SearchKeys.normalize(firstName), SearchKeys.normalize(city) });
+			for (int p = 0; p < petsPerOwner; p++, petId++) {
+				LocalDate birthDate = TODAY.minusDays(random.nextInt(15 * 365));
+				String name = pick(random, PET_NAMES);
+				petRows.add(new Object[] { petId, name, Date.valueOf(birthDate),
+						types.get(random.nextInt(types.size())), ownerId, SearchKeys.normalize(name) });
+				long days = TODAY.toEpochDay() - birthDate.toEpochDay();
+				for (int v = 0; v < visitsPerPet; v++, visitId++) {
+					LocalDate date = birthDate.plusDays(random.nextLong(days + 1));
+					visitRows.add(new Object[] { visitId, petId, Date.valueOf(date), pick(random, DESCRIPTIONS) });
+				}
+			}
+			if (ownerRows.size() == BATCH_OWNERS || i == owners - 1) {
+				insert(ownerRows, petRows, visitRows);
+			}
+		}
+		return generated;
+	}
+
+	private void insert(List<Object[]> ownerRows, List<Object[]> petRows, List<Object[]> visitRows) {
+		this.transaction.executeWithoutResult((status) -> {
+			this.jdbc.batchUpdate(
+					"INSERT INTO owners (id, first_name, last_name, address, city, telephone, last_name_search, "
+							+ "first_name_search, city_search) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+					ownerRows);
+			this.jdbc.batchUpdate(
+					"INSERT INTO pets (id, name, birth_date, type_id, owner_id, name_search) VALUES (?, ?, ?, ?, ?, ?)",
+					petRows);
+			this.jdbc.batchUpdate("INSERT INTO visits (id, pet_id, visit_date, description) VALUES (?, ?, ?, ?)",
+					visitRows);
+		});
+		ownerRows.clear();
+		petRows.clear();
+		visitRows.clear();
+	}
+
+	private int reserve(String table, int count) {
+		return IdReservations.reserve(this.jdbc, this.database, table, count);
+	}
+
+	private static String pick(SplittableRandom random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+
+	/**
+	 * Cumulative weights of a Zipf distribution (exponent 1) over the given number of
+	 * ranks, normalized to end at 1.
+	 */
+	private static double[] zipfCumulativeWeights(int ranks) {
+		double[] weights = new double[ranks];
+		double sum = 0;
+		for (int rank = 0; rank < ranks; rank++) {
+			sum += 1.0 / (rank + 1);
+			weights[rank] = sum;
+		}
+		for (int rank = 0; rank < ranks; rank++) {
+			weights[rank] /= sum;
+		}
+		return weights;
+	}
+
+	private static int zipf(SplittableRandom random, double[] cumulativeWeights) {
+		double value = random.nextDouble();
+		int low = 0;
+		int high = cumulativeWeights.length - 1;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (cumulativeWeights[middle] < value) {
+				low = middle + 1;
+			}
+			else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * The ids of the generated owners, pets and visits, each a contiguous range.
+	 */
+	public static final class Generated {
+
+		private final int firstOwnerId;
+
+		private final int owners;
+
+		private final int firstPetId;
+
+		private final int pets;
+
+		private final int firstVisitId;
+
+		private final int visits;
+
+		Generated(int firstOwnerId, int owners, int firstPetId, int pets, int firstVisitId, int visits) {
+			this.firstOwnerId = firstOwnerId;
+			this.owners = owners;
+			this.firstPetId = firstPetId;
+			this.pets = pets;
+			this.firstVisitId = firstVisitId;
+			this.visits = visits;
+		}
+
+		public int getFirstOwnerId() {
+			return this.firstOwnerId;
+		}
+
+		public int getOwners() {
+			return this.owners;
+		}
+
+		public int getFirstPetId() {
+			return this.firstPetId;
+		}
+
+		public int getPets() {
+			return this.pets;
+		}
+
+		public int getFirstVisitId() {
+			return this.firstVisitId;
+		}
+
+		public int getVisits() {
+			return this.visits;
+		}
+
+	}
+
+}
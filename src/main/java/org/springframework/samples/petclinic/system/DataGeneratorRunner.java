@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the database with a large synthetic data set at startup when the
+ * <code>generate</code> profile is active, for example:
+ *
+ * <pre class="code">
+ * java -jar petclinic.jar --spring.profiles.active=generate --petclinic.generator.owners=1000000
+ * </pre>
+ *
+ * The generated rows are in place before the application is ready, and a
+ * {@link BulkLoadEvent} is published so that the indexes and rollups are rebuilt with
+ * them.
+ */
+@Component
+@Profile("generate")
+class DataGeneratorRunner implements ApplicationRunner {
+
+	private static final Log logger = LogFactory.getLog(DataGeneratorRunner.class);
+
+	private final DataGenerator generator;
+
+	private final ApplicationEventPublisher events;
+
+	private final int owners;
+
+	private final int petsPerOwner;
+
+	private final int visitsPerPet;
+
+	DataGeneratorRunner(JdbcTemplate jdbc, ApplicationEventPublisher events, @Value("${database}") String database,
+			@Value("${petclinic.generator.owners:100000}") int owners,
+			@Value("${petclinic.generator.pets-per-owner:2}") int petsPerOwner,
+			@Value("${petclinic.generator.visits-per-pet:4}") int visitsPerPet,
+			@Value("${petclinic.generator.seed:42}") long seed) {
+		this.generator = new DataGenerator(jdbc, database, seed);
+		this.events = events;
+		this.owners = owners;
+		this.petsPerOwner = petsPerOwner;
+		this.visitsPerPet = visitsPerPet;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		long start = System.nanoTime();
+		DataGenerator.Generated generated = this.generator.generate(this.owners, this.petsPerOwner, this.visitsPerPet);
+		this.events.publishEvent(new BulkLoadEvent("generator"));
+		logger.info("Generated " + generated.getOwners() + " owners, " + generated.getPets() + " pets and "
+				+ generated.getVisits() + " visits in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+	}
+
+}
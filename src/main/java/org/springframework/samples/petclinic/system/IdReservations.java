@@ -0,0 +1,131 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reserves ranges of ids for rows inserted with explicit ids in JDBC batches, in a way
+ * that works with both id generation modes.
+ * <p>
+ * The range is taken from the <code>petclinic_ids</code> sequence of the
+ * <code>pooled-ids</code> profile by advancing it atomically, the way Hibernate takes its
+ * blocks: with <code>NEXT VALUE FOR</code>, a block at a time, on H2 and HSQLDB, and with
+ * a single <code>UPDATE</code> of the sequence row on MySQL. A block Hibernate takes at
+ * the same time therefore never overlaps the range, whether it comes from this
+ * application or another one. The sequence is first advanced past the highest id of the
+ * table, and the identity column is moved past the range afterwards; reservations are
+ * serialized within the JVM so that the column only ever moves forward.
+ * <p>
+ * Reading the highest id and moving the identity column are separate statements, so rows
+ * inserted through the identity column in between, by this application in the default id
+ * generation mode or by any other process, can still collide with the range.
+ */
+public final class IdReservations {
+
+	/**
+	 * The sequence (a table on MySQL) of the <code>pooled-ids</code> profile.
+	 */
+	public static final String SEQUENCE = "petclinic_ids";
+
+	private static final int MAX_ATTEMPTS = 10;
+
+	private IdReservations() {
+	}
+
+	/**
+	 * Reserve ids for the given number of rows.
+	 * @param jdbc access to the database
+	 * @param database the schema dialect: <code>h2</code>, <code>hsqldb</code> or
+	 * <code>mysql</code>
+	 * @param table the table the rows are inserted into
+	 * @param count the number of rows
+	 * @return the first of <code>count</code> consecutive ids
+	 */
+	public static synchronized int reserve(JdbcTemplate jdbc, String database, String table, int count) {
+		Integer max = jdbc.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+		long after = (max != null) ? max : 0;
+		long first = "mysql".equals(database) ? reserveFromTable(jdbc, after, count)
+				: reserveFromSequence(jdbc, database, after, count);
+		long next = first + count;
+		if ("mysql".equals(database)) {
+			jdbc.execute("ALTER TABLE " + table + " AUTO_INCREMENT = " + next);
+		}
+		else {
+			jdbc.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+		}
+		return Math.toIntExact(first);
+	}
+
+	/**
+	 * Move the sequence row past the range in one statement, which holds the row lock
+	 * that Hibernate's own reads of the row wait for.
+	 */
+	private static long reserveFromTable(JdbcTemplate jdbc, long after, int count) {
+		return jdbc.execute((ConnectionCallback<Long>) (connection) -> {
+			try (PreparedStatement update = connection.prepareStatement(
+					"UPDATE " + SEQUENCE + " SET next_val = LAST_INSERT_ID(GREATEST(next_val, ?) + ?)")) {
+				update.setLong(1, after + 1);
+				update.setLong(2, count);
+				update.executeUpdate();
+			}
+			try (PreparedStatement select = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+					ResultSet result = select.executeQuery()) {
+				result.next();
+				return result.getLong(1) - count;
+			}
+		});
+	}
+
+	/**
+	 * Draw enough consecutive blocks from the sequence for the range. Blocks drawn by
+	 * others in between break the run of blocks, which is then drawn again; the blocks
+	 * already drawn are left unused.
+	 */
+	private static long reserveFromSequence(JdbcTemplate jdbc, String database, long after, int count) {
+		long increment = jdbc.queryForObject(
+				"SELECT INCREMENT FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?", Long.class,
+				SEQUENCE.toUpperCase());
+		int blocks = (int) Math.max(1, (count + increment - 1) / increment);
+		for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+			List<Long> drawn = draw(jdbc, database, blocks);
+			long first = drawn.get(0);
+			if (first <= after) {
+				// the sequence is behind the table: skip past its highest id and retry
+				draw(jdbc, database, (int) ((after - first) / increment) + 1);
+				continue;
+			}
+			if (drawn.get(blocks - 1) == first + (blocks - 1) * increment) {
+				return first;
+			}
+		}
+		throw new DataAccessResourceFailureException("Could not draw " + blocks + " consecutive blocks from " + SEQUENCE
+				+ " in " + MAX_ATTEMPTS + " attempts");
+	}
+
+	private static List<Long> draw(JdbcTemplate jdbc, String database, int values) {
+		String rows = "hsqldb".equals(database) ? "UNNEST(SEQUENCE_ARRAY(1, ?, 1))" : "SYSTEM_RANGE(1, ?)";
+		return jdbc.queryForList("SELECT NEXT VALUE FOR " + SEQUENCE + " FROM " + rows + " ORDER BY 1", Long.class,
+				values);
+	}
+
+}
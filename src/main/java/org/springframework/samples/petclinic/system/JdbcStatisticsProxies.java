@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Proxies around a {@link DataSource} and the JDBC objects it hands out that record
+ * executed statements, JDBC time and rows read into the {@link RequestStatistics} of the
+ * current request. Outside a request the proxies only delegate.
+ */
+final class JdbcStatisticsProxies {
+
+	private JdbcStatisticsProxies() {
+	}
+
+	/**
+	 * Wrap the given data source. The proxy is a subclass of the data source's class, so
+	 * pool specific metrics and health checks still recognize it.
+	 */
+	static DataSource dataSource(DataSource dataSource) {
+		ProxyFactory factory = new ProxyFactory(dataSource);
+		factory.setProxyTargetClass(true);
+		factory.addAdvice((MethodInterceptor) (invocation) -> {
+			Object result = invocation.proceed();
+			return (result instanceof Connection) ? connection((Connection) result) : result;
+		});
+		return (DataSource) factory.getProxy();
+	}
+
+	private static Connection connection(Connection connection) {
+		return proxy(Connection.class, connection, (proxy, method, args) -> {
+			Object result = invoke(connection, method, args);
+			if (result instanceof CallableStatement) {
+				return statement(CallableStatement.class, (Statement) result);
+			}
+			if (result instanceof PreparedStatement) {
+				return statement(PreparedStatement.class, (Statement) result);
+			}
+			if (result instanceof Statement) {
+				return statement(Statement.class, (Statement) result);
+			}
+			return result;
+		});
+	}
+
+	private static <S extends Statement> S statement(Class<S> type, Statement statement) {
+		return proxy(type, statement, (proxy, method, args) -> {
+			RequestStatistics statistics = RequestStatistics.current();
+			if (statistics == null) {
+				return invoke(statement, method, args);
+			}
+			Object result;
+			if (method.getName().startsWith("execute")) {
+				long start = System.nanoTime();
+				try {
+					result = invoke(statement, method, args);
+				}
+				finally {
+					statistics.statementExecuted(System.nanoTime() - start);
+				}
+			}
+			else {
+				result = invoke(statement, method, args);
+			}
+			return (result instanceof ResultSet) ? resultSet((ResultSet) result) : result;
+		});
+	}
+
+	private static ResultSet resultSet(ResultSet resultSet) {
+		return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+			Object result = invoke(resultSet, method, args);
+			if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+				RequestStatistics statistics = RequestStatistics.current();
+				if (statistics != null) {
+					statistics.rowRead();
+				}
+			}
+			return result;
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+		return (T) Proxy.newProxyInstance(JdbcStatisticsProxies.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					if ("unwrap".equals(method.getName()) && type.equals(args[0])) {
+						return proxy;
+					}
+					if ("isWrapperFor".equals(method.getName()) && type.equals(args[0])) {
+						return true;
+					}
+					return handler.invoke(proxy, method, args);
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Supplies the total number of rows behind a paginated view according to the configured
+ * {@link CountMode}. Broad searches such as an empty last name prefix make the
+ * <code>COUNT</code> query more expensive than fetching the page itself, so the total can
+ * be cached per search or skipped altogether.
+ */
+@Component
+public class PaginationCounter {
+
+	static final String CACHE_NAME = "paginationCounts";
+
+	private final CountMode mode;
+
+	private final CacheManager cacheManager;
+
+	public PaginationCounter(@Value("${petclinic.pagination.count-mode:exact}") CountMode mode,
+			CacheManager cacheManager) {
+		this.mode = mode;
+		this.cacheManager = cacheManager;
+	}
+
+	public CountMode getMode() {
+		return this.mode;
+	}
+
+	/**
+	 * Whether totals returned by {@link #count} may be out of date.
+	 */
+	public boolean isApproximate() {
+		return this.mode == CountMode.CACHED;
+	}
+
+	/**
+	 * Return the total for the given search.
+	 * @param key identifies the search, for example the entity and the search prefix
+	 * @param exactCount runs the <code>COUNT</code> query
+	 * @return the total, or {@code null} if the mode is {@link CountMode#NONE}
+	 */
+	public Long count(String key, LongSupplier exactCount) {
+		switch (this.mode) {
+		case NONE:
+			return null;
+		case CACHED:
+			Cache cache = this.cacheManager.getCache(CACHE_NAME);
+			if (cache != null) {
+				return cache.get(key, exactCount::getAsLong);
+			}
+			return exactCount.getAsLong();
+		default:
+			return exactCount.getAsLong();
+		}
+	}
+
+}
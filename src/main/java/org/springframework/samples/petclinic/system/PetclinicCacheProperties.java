@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Sizing and expiry of the application caches, keyed by cache name, for example
+ * <code>petclinic.cache.specs.vets.heap-entries=10</code>. Caches without an entry use
+ * the defaults of {@link Spec}.
+ */
+@ConfigurationProperties("petclinic.cache")
+class PetclinicCacheProperties {
+
+	private final Map<String, Spec> specs = new LinkedHashMap<>();
+
+	public Map<String, Spec> getSpecs() {
+		return this.specs;
+	}
+
+	Spec getSpec(String cacheName) {
+		return this.specs.getOrDefault(cacheName, new Spec());
+	}
+
+	public static class Spec {
+
+		/**
+		 * Maximum number of entries kept on the heap.
+		 */
+		private long heapEntries = 1000;
+
+		/**
+		 * Size of an optional off-heap tier. Entries stored there are serialized.
+		 */
+		private DataSize offHeap;
+
+		/**
+		 * Time after which an entry expires once created or updated.
+		 */
+		private Duration timeToLive;
+
+		/**
+		 * Time after which an entry expires if it has not been read since it was created,
+		 * updated or last read. Reads never keep an entry beyond its time-to-live.
+		 */
+		private Duration timeToIdle;
+
+		/**
+		 * Whether keys and values are copied (serialized) on every read and write instead
+		 * of being shared by reference.
+		 */
+		private boolean storeByValue;
+
+		public long getHeapEntries() {
+			return this.heapEntries;
+		}
+
+		public void setHeapEntries(long heapEntries) {
+			this.heapEntries = heapEntries;
+		}
+
+		public DataSize getOffHeap() {
+			return this.offHeap;
+		}
+
+		public void setOffHeap(DataSize offHeap) {
+			this.offHeap = offHeap;
+		}
+
+		public Duration getTimeToLive() {
+			return this.timeToLive;
+		}
+
+		public void setTimeToLive(Duration timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		public Duration getTimeToIdle() {
+			return this.timeToIdle;
+		}
+
+		public void setTimeToIdle(Duration timeToIdle) {
+			this.timeToIdle = timeToIdle;
+		}
+
+		public boolean isStoreByValue() {
+			return this.storeByValue;
+		}
+
+		public void setStoreByValue(boolean storeByValue) {
+			this.storeByValue = storeByValue;
+		}
+
+	}
+
+}
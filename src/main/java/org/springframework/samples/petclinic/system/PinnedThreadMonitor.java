@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.util.ReflectionUtils;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Streams the JDK Flight Recorder events of virtual threads that stay pinned to their
+ * carrier for longer than {@value #THRESHOLD_MILLIS}ms, counts them as
+ * <code>petclinic.threads.pinned</code> and logs where they were pinned. Connection pool
+ * waits and <code>synchronized</code> sections in the data path show up here if they keep
+ * carriers from serving other requests.
+ * <p>
+ * The JFR event streaming API (Java 14+) is used through reflection, like
+ * {@link VirtualThreads}, so that the application still compiles for and runs on Java 8.
+ */
+class PinnedThreadMonitor implements InitializingBean, DisposableBean {
+
+	static final long THRESHOLD_MILLIS = 20;
+
+	private static final String EVENT = "jdk.VirtualThreadPinned";
+
+	private static final String CONSUMER = "jdk.jfr.consumer.";
+
+	private static final Log logger = LogFactory.getLog(PinnedThreadMonitor.class);
+
+	private final Counter pinned;
+
+	private AutoCloseable stream;
+
+	PinnedThreadMonitor(MeterRegistry registry) {
+		this.pinned = (registry != null) ? Counter.builder("petclinic.threads.pinned").register(registry) : null;
+	}
+
+	@Override
+	public void afterPropertiesSet() throws ReflectiveOperationException {
+		Class<?> streamType = Class.forName(CONSUMER + "RecordingStream");
+		AutoCloseable stream = (AutoCloseable) streamType.getConstructor().newInstance();
+		Object settings = call(stream, streamType, "enable", new Class<?>[] { String.class }, EVENT);
+		Class<?> settingsType = Class.forName("jdk.jfr.EventSettings");
+		settings = call(settings, settingsType, "withThreshold", new Class<?>[] { Duration.class },
+				Duration.ofMillis(THRESHOLD_MILLIS));
+		call(settings, settingsType, "withStackTrace", new Class<?>[0]);
+		Consumer<Object> onPinned = this::onPinned;
+		call(stream, streamType, "onEvent", new Class<?>[] { String.class, Consumer.class }, EVENT, onPinned);
+		call(stream, streamType, "startAsync", new Class<?>[0]);
+		this.stream = stream;
+	}
+
+	private void onPinned(Object event) {
+		if (this.pinned != null) {
+			this.pinned.increment();
+		}
+		if (logger.isWarnEnabled()) {
+			try {
+				logger.warn(describe(event));
+			}
+			catch (ReflectiveOperationException ex) {
+				logger.warn("Virtual thread pinned", ex);
+			}
+		}
+	}
+
+	/**
+	 * Describe a <code>RecordedEvent</code>: its duration and top stack frames.
+	 */
+	private static String describe(Object event) throws ReflectiveOperationException {
+		Class<?> eventType = Class.forName(CONSUMER + "RecordedEvent");
+		Duration duration = (Duration) call(event, eventType, "getDuration", new Class<?>[0]);
+		StringBuilder message = new StringBuilder("Virtual thread pinned for ").append(duration.toMillis())
+				.append("ms");
+		Object stackTrace = call(event, eventType, "getStackTrace", new Class<?>[0]);
+		if (stackTrace != null) {
+			Class<?> frameType = Class.forName(CONSUMER + "RecordedFrame");
+			Class<?> methodType = Class.forName(CONSUMER + "RecordedMethod");
+			Class<?> classType = Class.forName(CONSUMER + "RecordedClass");
+			List<?> frames = (List<?>) call(stackTrace, Class.forName(CONSUMER + "RecordedStackTrace"), "getFrames",
+					new Class<?>[0]);
+			for (Object frame : frames.subList(0, Math.min(frames.size(), 10))) {
+				Object method = call(frame, frameType, "getMethod", new Class<?>[0]);
+				Object type = call(method, methodType, "getType", new Class<?>[0]);
+				message.append("\n\tat ").append(call(type, classType, "getName", new Class<?>[0])).append('.')
+						.append(call(method, methodType, "getName", new Class<?>[0])).append(" line ")
+						.append(call(frame, frameType, "getLineNumber", new Class<?>[0]));
+			}
+		}
+		return message.toString();
+	}
+
+	/**
+	 * Invoke a public method of a JFR API type, rather than of the target's own
+	 * (internal) class.
+	 */
+	private static Object call(Object target, Class<?> type, String name, Class<?>[] parameterTypes, Object... args)
+			throws ReflectiveOperationException {
+		Method method = type.getMethod(name, parameterTypes);
+		return ReflectionUtils.invokeMethod(method, target, args);
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		if (this.stream != null) {
+			this.stream.close();
+		}
+	}
+
+}
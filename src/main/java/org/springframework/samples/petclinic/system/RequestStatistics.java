@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+/**
+ * Database work done while handling the current request: JDBC statements executed, rows
+ * read from their result sets, time spent in JDBC and entities loaded by Hibernate.
+ * Collected per thread between {@link #start()} and {@link #stop()}; work done outside a
+ * request is not collected.
+ */
+public final class RequestStatistics {
+
+	private static final ThreadLocal<RequestStatistics> current = new ThreadLocal<>();
+
+	private int statements;
+
+	private long rows;
+
+	private long jdbcNanos;
+
+	private int entityLoads;
+
+	private RequestStatistics() {
+	}
+
+	static RequestStatistics start() {
+		RequestStatistics statistics = new RequestStatistics();
+		current.set(statistics);
+		return statistics;
+	}
+
+	static RequestStatistics stop() {
+		RequestStatistics statistics = current.get();
+		current.remove();
+		return statistics;
+	}
+
+	/**
+	 * Return the statistics of the request handled by the current thread.
+	 * @return the statistics, or {@code null} outside a request
+	 */
+	public static RequestStatistics current() {
+		return current.get();
+	}
+
+	void statementExecuted(long nanos) {
+		this.statements++;
+		this.jdbcNanos += nanos;
+	}
+
+	void rowRead() {
+		this.rows++;
+	}
+
+	void entityLoaded() {
+		this.entityLoads++;
+	}
+
+	public int getStatements() {
+		return this.statements;
+	}
+
+	public long getRows() {
+		return this.rows;
+	}
+
+	public long getJdbcNanos() {
+		return this.jdbcNanos;
+	}
+
+	public int getEntityLoads() {
+		return this.entityLoads;
+	}
+
+	@Override
+	public String toString() {
+		return "statements=" + this.statements + ", rows=" + this.rows + ", jdbc=" + this.jdbcNanos / 1_000_000
+				+ "ms, entityLoads=" + this.entityLoads;
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-request database statistics, see {@link RequestStatisticsInterceptor}. Enabled
+ * unless <code>petclinic.request-stats.enabled</code> is <code>false</code>; requests
+ * slower than <code>petclinic.request-stats.slow-threshold</code> are logged.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.request-stats.enabled", matchIfMissing = true)
+class RequestStatisticsConfiguration {
+
+	@Bean
+	static BeanPostProcessor requestStatisticsDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				return (bean instanceof DataSource) ? JdbcStatisticsProxies.dataSource((DataSource) bean) : bean;
+			}
+
+		};
+	}
+
+	@Bean
+	HibernatePropertiesCustomizer requestStatisticsHibernateCustomizer() {
+		return (properties) -> properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCounter());
+	}
+
+	@Bean
+	WebMvcConfigurer requestStatisticsWebMvcConfigurer(ObjectProvider<MeterRegistry> registry,
+			@Value("${petclinic.request-stats.slow-threshold:500ms}") Duration slowThreshold) {
+		return new WebMvcConfigurer() {
+
+			@Override
+			public void addInterceptors(InterceptorRegistry interceptors) {
+				interceptors.addInterceptor(new RequestStatisticsInterceptor(registry.getObject(), slowThreshold));
+			}
+
+		};
+	}
+
+}
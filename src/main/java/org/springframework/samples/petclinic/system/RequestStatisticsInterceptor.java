@@ -0,0 +1,102 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Collects the {@link RequestStatistics} of every request handled by a controller method
+ * and publishes them tagged with the handler, for example
+ * <code>handler=OwnerController.showOwner</code>:
+ * <ul>
+ * <li><code>petclinic.request.sql.statements</code>: JDBC statements executed</li>
+ * <li><code>petclinic.request.sql.rows</code>: rows read from result sets</li>
+ * <li><code>petclinic.request.jdbc</code>: time spent executing statements</li>
+ * <li><code>petclinic.request.entity.loads</code>: entities loaded by Hibernate</li>
+ * </ul>
+ * Requests slower than the configured threshold are logged with that breakdown, so a
+ * growing statement count (an N+1 query) stands out. Handlers that return an asynchronous
+ * result are measured on the dispatch that completes the response.
+ */
+class RequestStatisticsInterceptor implements AsyncHandlerInterceptor {
+
+	private static final Log logger = LogFactory.getLog(RequestStatisticsInterceptor.class);
+
+	private static final String START_ATTRIBUTE = RequestStatisticsInterceptor.class.getName() + ".start";
+
+	private final MeterRegistry registry;
+
+	private final Duration slowThreshold;
+
+	RequestStatisticsInterceptor(MeterRegistry registry, Duration slowThreshold) {
+		this.registry = registry;
+		this.slowThreshold = slowThreshold;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (handler instanceof HandlerMethod) {
+			request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+			RequestStatistics.start();
+		}
+		return true;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+			Object handler) {
+		RequestStatistics.stop();
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Object start = request.getAttribute(START_ATTRIBUTE);
+		RequestStatistics statistics = RequestStatistics.stop();
+		if (start == null || statistics == null) {
+			return;
+		}
+		long elapsed = System.nanoTime() - (Long) start;
+		HandlerMethod method = (HandlerMethod) handler;
+		String name = method.getBeanType().getSimpleName() + "." + method.getMethod().getName();
+		DistributionSummary.builder("petclinic.request.sql.statements").baseUnit("statements").tag("handler", name)
+				.register(this.registry).record(statistics.getStatements());
+		DistributionSummary.builder("petclinic.request.sql.rows").baseUnit("rows").tag("handler", name)
+				.register(this.registry).record(statistics.getRows());
+		Timer.builder("petclinic.request.jdbc").tag("handler", name).register(this.registry)
+				.record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+		DistributionSummary.builder("petclinic.request.entity.loads").baseUnit("entities").tag("handler", name)
+				.register(this.registry).record(statistics.getEntityLoads());
+		if (elapsed > this.slowThreshold.toNanos() && logger.isWarnEnabled()) {
+			logger.warn("Slow request " + request.getMethod() + " " + request.getRequestURI() + " (" + name + ") took "
+					+ elapsed / 1_000_000 + "ms: " + statistics);
+		}
+	}
+
+}
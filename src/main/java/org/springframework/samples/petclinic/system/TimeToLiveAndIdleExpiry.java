@@ -0,0 +1,90 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.ehcache.expiry.ExpiryPolicy;
+
+/**
+ * Expiry with both a time-to-live and a time-to-idle: an entry expires when it has not
+ * been read for the time-to-idle, and at the latest when it is older than the
+ * time-to-live, however often it is read. Ehcache only tells an expiry policy about the
+ * current operation, so the creation time of every entry is kept here; records older than
+ * the time-to-live are dropped every {@value #PRUNE_INTERVAL} creations, as their entries
+ * have expired anyway.
+ */
+class TimeToLiveAndIdleExpiry implements ExpiryPolicy<Object, Object> {
+
+	static final int PRUNE_INTERVAL = 1000;
+
+	private final Duration timeToLive;
+
+	private final Duration timeToIdle;
+
+	private final LongSupplier clock;
+
+	private final ConcurrentMap<Object, Long> created = new ConcurrentHashMap<>();
+
+	private final AtomicLong creations = new AtomicLong();
+
+	TimeToLiveAndIdleExpiry(Duration timeToLive, Duration timeToIdle) {
+		this(timeToLive, timeToIdle, System::currentTimeMillis);
+	}
+
+	TimeToLiveAndIdleExpiry(Duration timeToLive, Duration timeToIdle, LongSupplier clock) {
+		this.timeToLive = timeToLive;
+		this.timeToIdle = timeToIdle;
+		this.clock = clock;
+	}
+
+	@Override
+	public Duration getExpiryForCreation(Object key, Object value) {
+		long now = this.clock.getAsLong();
+		this.created.put(key, now);
+		if (this.creations.incrementAndGet() % PRUNE_INTERVAL == 0) {
+			long expired = now - this.timeToLive.toMillis();
+			this.created.values().removeIf((time) -> time < expired);
+		}
+		return min(this.timeToLive, this.timeToIdle);
+	}
+
+	@Override
+	public Duration getExpiryForAccess(Object key, Supplier<?> value) {
+		Long time = this.created.get(key);
+		if (time == null) {
+			// no record left: the entry is older than the time-to-live
+			return Duration.ZERO;
+		}
+		Duration remaining = this.timeToLive.minusMillis(this.clock.getAsLong() - time);
+		return remaining.isNegative() ? Duration.ZERO : min(remaining, this.timeToIdle);
+	}
+
+	@Override
+	public Duration getExpiryForUpdate(Object key, Supplier<?> oldValue, Object newValue) {
+		return getExpiryForCreation(key, newValue);
+	}
+
+	private static Duration min(Duration first, Duration second) {
+		return (first.compareTo(second) <= 0) ? first : second;
+	}
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskSchedulerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Runs servlet requests, asynchronous tasks and scheduled tasks on virtual threads when
+ * <code>petclinic.threads.mode=virtual</code>. Requires Java 21 or later; the application
+ * fails to start otherwise rather than silently keep platform threads.
+ * <p>
+ * A blocked virtual thread gives its carrier back to other virtual threads, unless it is
+ * pinned: blocked inside a <code>synchronized</code> block or a native frame.
+ * {@link PinnedThreadMonitor} reports pinned threads as they happen.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "petclinic.threads.mode", havingValue = "virtual")
+class VirtualThreadConfiguration {
+
+	@Bean
+	TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		ExecutorService executor = VirtualThreads.executor("tomcat-");
+		return (protocolHandler) -> protocolHandler.setExecutor(executor);
+	}
+
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+			AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME })
+	AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(VirtualThreads.executor("task-"));
+	}
+
+	@Bean
+	TaskSchedulerCustomizer virtualThreadTaskSchedulerCustomizer() {
+		return (scheduler) -> scheduler.setThreadFactory(VirtualThreads.factory("scheduling-"));
+	}
+
+	@Bean
+	PinnedThreadMonitor pinnedThreadMonitor(ObjectProvider<MeterRegistry> registry) {
+		return new PinnedThreadMonitor(registry.getIfAvailable());
+	}
+
+}
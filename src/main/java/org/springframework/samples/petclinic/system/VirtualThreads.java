@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Creates virtual threads through reflection, so that the application still compiles for
+ * and runs on Java versions without them.
+ */
+public final class VirtualThreads {
+
+	private static final Method ofVirtual = ReflectionUtils.findMethod(Thread.class, "ofVirtual");
+
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Whether the running JVM supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Return a factory of virtual threads named with the given prefix and a counter.
+	 * @param prefix the thread name prefix
+	 * @return the thread factory
+	 * @throws IllegalStateException if the JVM does not support virtual threads
+	 */
+	public static ThreadFactory factory(String prefix) {
+		if (!isSupported()) {
+			throw new IllegalStateException(
+					"Virtual threads require Java 21 or later, running on " + System.getProperty("java.version"));
+		}
+		try {
+			// resolve on the public interface, the builder's own class is internal to the
+			// JDK
+			Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+			Object builder = ofVirtual.invoke(null);
+			builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+			return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+		}
+		catch (ReflectiveOperationException ex) {
+			throw new IllegalStateException("Could not create a virtual thread factory", ex);
+		}
+	}
+
+	/**
+	 * Return an executor that starts a new virtual thread for every task.
+	 * @param prefix the thread name prefix
+	 * @return the executor
+	 * @throws IllegalStateException if the JVM does not support virtual threads
+	 */
+	public static ExecutorService executor(String prefix) {
+		ThreadFactory factory = factory(prefix);
+		Method newThreadPerTaskExecutor = ReflectionUtils.findMethod(Executors.class, "newThreadPerTaskExecutor",
+				ThreadFactory.class);
+		return (ExecutorService) ReflectionUtils.invokeMethod(newThreadPerTaskExecutor, null, factory);
+	}
+
+}
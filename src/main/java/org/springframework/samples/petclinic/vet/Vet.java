@@ -15,8 +15,9 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import org.springframework.beans.support.MutableSortDefinition;
-import org.springframework.beans.support.PropertyComparator;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.samples.petclinic.model.Person;
 
 import javax.persistence.*;
@@ -25,6 +26,10 @@ import java.util.*;
 
 /**
  * Simple JavaBean domain object representing a veterinarian.
+ * <p>
+ * Specialties are shown wherever vets are, and vet lists and pages are cached outside of
+ * any persistence context, so they are fetched eagerly. They are fetched in batches
+ * rather than one query per vet, so a page of vets costs one extra query at most.
  *
  * @author Ken Krebs
  * @author Juergen Hoeller
@@ -32,30 +37,43 @@ import java.util.*;
  * @author Arjen Poutsma
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "vets")
 public class Vet extends Person {
 
+	private static final Comparator<Specialty> SPECIALTY_ORDER = Comparator.comparing(Specialty::getName,
+			Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+
 	@ManyToMany(fetch = FetchType.EAGER)
+	@BatchSize(size = 25)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 	@JoinTable(name = "vet_specialties", joinColumns = @JoinColumn(name = "vet_id"),
 			inverseJoinColumns = @JoinColumn(name = "specialty_id"))
-	private Set<Specialty> specialties;
+	@OrderBy("name")
+	private List<Specialty> specialties;
 
-	protected Set<Specialty> getSpecialtiesInternal() {
+	protected List<Specialty> getSpecialtiesInternal() {
 		if (this.specialties == null) {
-			this.specialties = new HashSet<>();
+			this.specialties = new ArrayList<>();
 		}
 		return this.specialties;
 	}
 
-	protected void setSpecialtiesInternal(Set<Specialty> specialties) {
-		this.specialties = specialties;
+	protected void setSpecialtiesInternal(Collection<Specialty> specialties) {
+		this.specialties = new ArrayList<>(specialties);
+		this.specialties.sort(SPECIALTY_ORDER);
 	}
 
+	/**
+	 * Return the specialties of this vet, sorted by name. Specialties are loaded in that
+	 * order and kept in it when added, so this is a read-only view rather than a sorted
+	 * copy.
+	 * @return an unmodifiable view of the specialties
+	 */
 	@XmlElement
 	public List<Specialty> getSpecialties() {
-		List<Specialty> sortedSpecs = new ArrayList<>(getSpecialtiesInternal());
-		PropertyComparator.sort(sortedSpecs, new MutableSortDefinition("name", true, true));
-		return Collections.unmodifiableList(sortedSpecs);
+		return Collections.unmodifiableList(getSpecialtiesInternal());
 	}
 
 	public int getNrOfSpecialties() {
@@ -63,7 +81,10 @@ public class Vet extends Person {
 	}
 
 	public void addSpecialty(Specialty specialty) {
-		getSpecialtiesInternal().add(specialty);
+		if (!getSpecialtiesInternal().contains(specialty)) {
+			getSpecialtiesInternal().add(specialty);
+			getSpecialtiesInternal().sort(SPECIALTY_ORDER);
+		}
 	}
 
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.vet;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reloads the cached vet list and vet pages in the background, ahead of their
+ * time-to-live, so that requests are not the ones paying for a cold cache. This also
+ * picks up changes to <code>vets</code> and <code>vet_specialties</code> made outside the
+ * application. The interval (<code>petclinic.vets.refresh-interval</code>, ISO-8601) must
+ * be shorter than the time-to-live of the <code>vets</code> and <code>vetPages</code>
+ * caches.
+ */
+@Component
+class VetCacheRefresher {
+
+	private final VetRepository vets;
+
+	VetCacheRefresher(VetRepository vets) {
+		this.vets = vets;
+	}
+
+	@Scheduled(initialDelayString = "${petclinic.vets.refresh-interval:PT50M}",
+			fixedDelayString = "${petclinic.vets.refresh-interval:PT50M}")
+	void refresh() {
+		this.vets.reloadAll();
+		Slice<Vet> page = this.vets.reloadSlice(PageRequest.of(0, VetController.PAGE_SIZE));
+		while (page.hasNext()) {
+			page = this.vets.reloadSlice(page.nextPageable());
+		}
+		page = this.vets.reloadPage(PageRequest.of(0, VetController.PAGE_SIZE));
+		while (page.hasNext()) {
+			page = this.vets.reloadPage(page.nextPageable());
+		}
+	}
+
+}
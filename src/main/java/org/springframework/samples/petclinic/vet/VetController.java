@@ -15,9 +15,10 @@
  */
 package org.springframework.samples.petclinic.vet;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.samples.petclinic.system.PaginationCounter;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -36,10 +37,15 @@ import java.util.List;
 @Controller
 class VetController {
 
+	static final int PAGE_SIZE = 5;
+
 	private final VetRepository vets;
 
-	public VetController(VetRepository clinicService) {
+	private final PaginationCounter counter;
+
+	public VetController(VetRepository clinicService, PaginationCounter counter) {
 		this.vets = clinicService;
+		this.counter = counter;
 	}
 
 	@GetMapping("/vets.html")
@@ -47,25 +53,28 @@ class VetController {
 		// Here we are returning an object of type 'Vets' rather than a collection of Vet
 		// objects so it is simpler for Object-Xml mapping
 		Vets vets = new Vets();
-		Page<Vet> paginated = findPaginated(page);
+		Slice<Vet> paginated = findPaginated(page);
 		vets.getVetList().addAll(paginated.toList());
 		return addPaginationModel(page, paginated, model);
 
 	}
 
-	private String addPaginationModel(int page, Page<Vet> paginated, Model model) {
+	private String addPaginationModel(int page, Slice<Vet> paginated, Model model) {
 		List<Vet> listVets = paginated.getContent();
+		Long totalItems = this.counter.count("vets", this.vets::count);
 		model.addAttribute("currentPage", page);
-		model.addAttribute("totalPages", paginated.getTotalPages());
-		model.addAttribute("totalItems", paginated.getTotalElements());
+		model.addAttribute("hasNext", paginated.hasNext());
+		model.addAttribute("totalPages",
+				(totalItems != null) ? (int) ((totalItems + PAGE_SIZE - 1) / PAGE_SIZE) : null);
+		model.addAttribute("totalItems", totalItems);
+		model.addAttribute("totalItemsApproximate", this.counter.isApproximate());
 		model.addAttribute("listVets", listVets);
 		return "vets/vetList";
 	}
 
-	private Page<Vet> findPaginated(int page) {
-		int pageSize = 5;
-		Pageable pageable = PageRequest.of(page - 1, pageSize);
-		return vets.findAll(pageable);
+	private Slice<Vet> findPaginated(int page) {
+		Pageable pageable = PageRequest.of(page - 1, PAGE_SIZE);
+		return vets.findSlice(pageable);
 	}
 
 	@GetMapping({ "/vets" })
@@ -15,14 +15,20 @@
  */
 package org.springframework.samples.petclinic.vet;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository class for <code>Vet</code> domain objects All method names are compliant
@@ -42,9 +48,20 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 * @return a <code>Collection</code> of <code>Vet</code>s
 	 */
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
+	@Cacheable(value = "vets", key = "'all'")
 	Collection<Vet> findAll() throws DataAccessException;
 
+	/**
+	 * Reload all <code>Vet</code>s from the data store and replace the cached list,
+	 * without evicting it first.
+	 * @return a <code>Collection</code> of <code>Vet</code>s
+	 * @see VetCacheRefresher
+	 */
+	@Query("SELECT vet FROM Vet vet")
+	@Transactional(readOnly = true)
+	@CachePut(value = "vets", key = "'all'")
+	Collection<Vet> reloadAll() throws DataAccessException;
+
 	/**
 	 * Retrieve all <code>Vet</code>s from data store in Pages
 	 * @param pageable
@@ -52,9 +69,81 @@ public interface VetRepository extends Repository<Vet, Integer> {
 	 * @throws DataAccessException
 	 */
 	@Transactional(readOnly = true)
-	@Cacheable("vets")
+	@Cacheable(value = "vetPages", key = "'page:' + #p0.pageNumber + ':' + #p0.pageSize")
 	Page<Vet> findAll(Pageable pageable) throws DataAccessException;
 
-	;
+	/**
+	 * Reload one page of <code>Vet</code>s with their total and replace the cached page,
+	 * without evicting it first.
+	 * @param pageable the page to reload
+	 * @return the requested <code>Page</code>
+	 * @throws DataAccessException
+	 * @see VetCacheRefresher
+	 */
+	@Query("SELECT vet FROM Vet vet")
+	@Transactional(readOnly = true)
+	@CachePut(value = "vetPages", key = "'page:' + #p0.pageNumber + ':' + #p0.pageSize")
+	Page<Vet> reloadPage(Pageable pageable) throws DataAccessException;
+
+	/**
+	 * Retrieve one page of <code>Vet</code>s without counting all of them. One extra row
+	 * is fetched to tell whether a further page exists.
+	 * @param pageable the page to retrieve
+	 * @return the requested <code>Slice</code>
+	 * @throws DataAccessException
+	 */
+	@Query("SELECT vet FROM Vet vet")
+	@Transactional(readOnly = true)
+	@Cacheable(value = "vetPages", key = "'slice:' + #p0.pageNumber + ':' + #p0.pageSize")
+	Slice<Vet> findSlice(Pageable pageable) throws DataAccessException;
+
+	/**
+	 * Reload one page of <code>Vet</code>s and replace the cached page, without evicting
+	 * it first.
+	 * @param pageable the page to reload
+	 * @return the requested <code>Slice</code>
+	 * @throws DataAccessException
+	 * @see VetCacheRefresher
+	 */
+	@Query("SELECT vet FROM Vet vet")
+	@Transactional(readOnly = true)
+	@CachePut(value = "vetPages", key = "'slice:' + #p0.pageNumber + ':' + #p0.pageSize")
+	Slice<Vet> reloadSlice(Pageable pageable) throws DataAccessException;
+
+	/**
+	 * Retrieve a <code>Vet</code> from the data store by id.
+	 * @param id the id to search for
+	 * @return the <code>Vet</code> if found
+	 */
+	@Transactional(readOnly = true)
+	Vet findById(Integer id) throws DataAccessException;
+
+	/**
+	 * Retrieve all <code>Specialty</code>s from the data store.
+	 * @return a <code>List</code> of <code>Specialty</code>s, ordered by name
+	 */
+	@Query("SELECT specialty FROM Specialty specialty ORDER BY specialty.name")
+	@Transactional(readOnly = true)
+	List<Specialty> findSpecialties() throws DataAccessException;
+
+	/**
+	 * Save a <code>Vet</code> to the data store, either inserting or updating it,
+	 * including its specialty assignments. Every cached vet list, page and total is
+	 * evicted once the transaction commits, so the change is visible on the next read.
+	 * @param vet the <code>Vet</code> to save
+	 * @throws DataAccessException
+	 */
+	@Caching(evict = { @CacheEvict(value = "vets", allEntries = true),
+			@CacheEvict(value = "vetPages", allEntries = true),
+			@CacheEvict(value = "paginationCounts", key = "'vets'") })
+	void save(Vet vet) throws DataAccessException;
+
+	/**
+	 * Count all <code>Vet</code>s in the data store.
+	 * @return the number of <code>Vet</code>s
+	 * @throws DataAccessException
+	 */
+	@Transactional(readOnly = true)
+	long count() throws DataAccessException;
 
 }
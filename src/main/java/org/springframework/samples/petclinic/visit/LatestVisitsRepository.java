@@ -0,0 +1,36 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads the most recent visits of several pets at once, for pages that show a whole
+ * owner.
+ */
+public interface LatestVisitsRepository {
+
+	/**
+	 * Retrieve the most recent <code>Visit</code>s of each of the given pets in a single
+	 * query, reading no more than the requested number of visits per pet.
+	 * @param petIds the ids of the pets whose visits should be loaded
+	 * @param perPet the maximum number of visits of each pet
+	 * @return the visits of all given pets, ordered by pet id, then most recent first
+	 */
+	List<Visit> findLatestByPetIdIn(Collection<Integer> petIds, int perPet);
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visit;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Spring Data fragment implementing {@link LatestVisitsRepository}. JPQL has no per-group
+ * limit, and window functions are missing from the supported MySQL and HSQLDB versions,
+ * so the query is a <code>UNION ALL</code> of one <code>LIMIT</code>ed branch per pet.
+ * Every branch reads the head of the <code>(pet_id, visit_date)</code> index range of its
+ * pet and stops there, however many visits the pet has. A <code>UNION ALL</code> keeps no
+ * order of its own, so the result is sorted again by pet, which only sorts the rows the
+ * branches returned.
+ */
+class LatestVisitsRepositoryImpl implements LatestVisitsRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional(readOnly = true)
+	@SuppressWarnings("unchecked")
+	public List<Visit> findLatestByPetIdIn(Collection<Integer> petIds, int perPet) {
+		if (petIds.isEmpty() || perPet <= 0) {
+			return Collections.emptyList();
+		}
+		StringBuilder sql = new StringBuilder();
+		for (int i = 1; i <= petIds.size(); i++) {
+			sql.append(i > 1 ? " UNION ALL " : "")
+					.append("(SELECT id, pet_id, visit_date, description FROM visits WHERE pet_id = ?").append(i)
+					.append(" ORDER BY visit_date DESC, id DESC LIMIT ").append(perPet).append(')');
+		}
+		sql.append(" ORDER BY pet_id, visit_date DESC, id DESC");
+		Query query = this.entityManager.createNativeQuery(sql.toString(), Visit.class);
+		int position = 1;
+		for (Integer petId : petIds) {
+			query.setParameter(position++, petId);
+		}
+		return query.getResultList();
+	}
+
+}
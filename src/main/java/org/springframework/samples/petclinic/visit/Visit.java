@@ -15,14 +15,20 @@
  */
 package org.springframework.samples.petclinic.visit;
 
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotEmpty;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Simple JavaBean domain object representing a visit.
@@ -45,6 +51,9 @@ public class Visit extends BaseEntity {
 	@Column(name = "pet_id")
 	private Integer petId;
 
+	@Transient
+	private boolean created;
+
 	/**
 	 * Creates a new instance of Visit for the current date
 	 */
@@ -76,4 +85,19 @@ public class Visit extends BaseEntity {
 		this.petId = petId;
 	}
 
+	@PrePersist
+	void markCreated() {
+		this.created = true;
+	}
+
+	@DomainEvents
+	Collection<Object> domainEvents() {
+		return Collections.singletonList(new VisitSavedEvent(this, this.created));
+	}
+
+	@AfterDomainEventPublication
+	void clearCreated() {
+		this.created = false;
+	}
+
 }
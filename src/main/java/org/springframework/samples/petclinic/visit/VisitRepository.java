@@ -16,10 +16,14 @@
 package org.springframework.samples.petclinic.visit;
 
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.samples.petclinic.model.BaseEntity;
 
-import java.util.List;
+import java.time.LocalDate;
 
 /**
  * Repository class for <code>Visit</code> domain objects All method names are compliant
@@ -32,15 +36,40 @@ import java.util.List;
  * @author Sam Brannen
  * @author Michael Isvy
  */
-public interface VisitRepository extends Repository<Visit, Integer> {
+public interface VisitRepository extends Repository<Visit, Integer>, LatestVisitsRepository {
 
 	/**
 	 * Save a <code>Visit</code> to the data store, either inserting or updating it.
+	 * Visits are not part of the cached owner aggregate, they are always read through
+	 * this repository, so saving one does not need to evict anything.
 	 * @param visit the <code>Visit</code> to save
 	 * @see BaseEntity#isNew
 	 */
 	void save(Visit visit) throws DataAccessException;
 
-	List<Visit> findByPetId(Integer petId);
+	/**
+	 * Retrieve one page of the <code>Visit</code>s of a pet, most recent first. The
+	 * visits are read in the order of the <code>(pet_id, visit_date)</code> index, and
+	 * without counting them all.
+	 * @param petId the id of the pet
+	 * @param pageable the page to retrieve
+	 * @return the visits of the page
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId ORDER BY visit.date DESC, visit.id DESC")
+	Slice<Visit> findByPetId(@Param("petId") Integer petId, Pageable pageable);
+
+	/**
+	 * Retrieve one page of the <code>Visit</code>s of a pet between two dates, most
+	 * recent first.
+	 * @param petId the id of the pet
+	 * @param from the earliest visit date, inclusive
+	 * @param to the latest visit date, inclusive
+	 * @param pageable the page to retrieve
+	 * @return the visits of the page
+	 */
+	@Query("SELECT visit FROM Visit visit WHERE visit.petId = :petId AND visit.date BETWEEN :from AND :to"
+			+ " ORDER BY visit.date DESC, visit.id DESC")
+	Slice<Visit> findByPetIdAndDateBetween(@Param("petId") Integer petId, @Param("from") LocalDate from,
+			@Param("to") LocalDate to, Pageable pageable);
 
 }
@@ -1,10 +1,13 @@
 DROP TABLE vet_specialties IF EXISTS;
 DROP TABLE vets IF EXISTS;
 DROP TABLE specialties IF EXISTS;
+DROP TABLE visit_rollups_state IF EXISTS;
+DROP TABLE visit_rollups IF EXISTS;
 DROP TABLE visits IF EXISTS;
 DROP TABLE pets IF EXISTS;
 DROP TABLE types IF EXISTS;
 DROP TABLE owners IF EXISTS;
+DROP SEQUENCE petclinic_ids IF EXISTS;
 
 
 CREATE TABLE vets (
@@ -36,23 +39,35 @@ CREATE INDEX types_name ON types (name);
 CREATE TABLE owners (
   id         INTEGER IDENTITY PRIMARY KEY,
   first_name VARCHAR(30),
-  last_name  VARCHAR_IGNORECASE(30),
+  last_name  VARCHAR(30),
   address    VARCHAR(255),
   city       VARCHAR(80),
-  telephone  VARCHAR(20)
+  telephone  VARCHAR(20),
+  -- last_name, first_name and city without case and accents, maintained by the
+  -- application
+  last_name_search  VARCHAR(60),
+  first_name_search VARCHAR(60),
+  city_search       VARCHAR(160)
 );
-CREATE INDEX owners_last_name ON owners (last_name);
+CREATE INDEX owners_last_name_search ON owners (last_name_search, id);
+-- the other owner search criteria, each followed by the order of the search results
+CREATE INDEX owners_telephone ON owners (telephone);
+CREATE INDEX owners_first_name ON owners (first_name_search, last_name_search, id);
+CREATE INDEX owners_city ON owners (city_search, last_name_search, id);
 
 CREATE TABLE pets (
   id         INTEGER IDENTITY PRIMARY KEY,
   name       VARCHAR(30),
   birth_date DATE,
   type_id    INTEGER NOT NULL,
-  owner_id   INTEGER NOT NULL
+  owner_id   INTEGER NOT NULL,
+  -- name without case and accents, maintained by the application
+  name_search VARCHAR(60)
 );
 ALTER TABLE pets ADD CONSTRAINT fk_pets_owners FOREIGN KEY (owner_id) REFERENCES owners (id);
 ALTER TABLE pets ADD CONSTRAINT fk_pets_types FOREIGN KEY (type_id) REFERENCES types (id);
-CREATE INDEX pets_name ON pets (name);
+-- covers the owner search by pet name
+CREATE INDEX pets_name_search ON pets (name_search, owner_id);
 
 CREATE TABLE visits (
   id          INTEGER IDENTITY PRIMARY KEY,
@@ -61,4 +76,23 @@ CREATE TABLE visits (
   description VARCHAR(255)
 );
 ALTER TABLE visits ADD CONSTRAINT fk_visits_pets FOREIGN KEY (pet_id) REFERENCES pets (id);
-CREATE INDEX visits_pet_id ON visits (pet_id);
+-- visits of a pet, most recent first, and the visits of a pet between two dates
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+-- number of visits per day and pet type, kept up to date by the application
+CREATE TABLE visit_rollups (
+  visit_date  DATE NOT NULL,
+  pet_type_id INTEGER NOT NULL,
+  visits      INTEGER NOT NULL,
+  PRIMARY KEY (visit_date, pet_type_id)
+);
+ALTER TABLE visit_rollups ADD CONSTRAINT fk_visit_rollups_types FOREIGN KEY (pet_type_id) REFERENCES types (id);
+
+-- the highest visit id counted by the last rebuild of visit_rollups
+CREATE TABLE visit_rollups_state (
+  max_visit_id INTEGER NOT NULL
+);
+INSERT INTO visit_rollups_state VALUES (0);
+
+-- ids of the pooled-ids profile, handed out by Hibernate in blocks of 50
+CREATE SEQUENCE petclinic_ids START WITH 1 INCREMENT BY 50;
@@ -32,24 +32,138 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
-  INDEX(last_name)
+  -- last_name, first_name and city without case and accents, maintained by the
+  -- application and compared exactly, as on the other databases
+  last_name_search VARCHAR(60) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin,
+  first_name_search VARCHAR(60) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin,
+  city_search VARCHAR(160) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin,
+  INDEX owners_last_name_search (last_name_search),
+  -- the other owner search criteria, each followed by the order of the search results
+  INDEX owners_telephone (telephone),
+  INDEX owners_first_name (first_name_search, last_name_search),
+  INDEX owners_city (city_search, last_name_search)
 ) engine=InnoDB;
 
+-- databases created by earlier versions keep their owners table above, so add the
+-- search key columns and their indexes when they are missing; the application fills in
+-- the keys of existing rows at startup
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND COLUMN_NAME = 'last_name_search') = 0,
+  'ALTER TABLE owners ADD COLUMN last_name_search VARCHAR(60) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin',
+  'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND COLUMN_NAME = 'first_name_search') = 0,
+  'ALTER TABLE owners ADD COLUMN first_name_search VARCHAR(60) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin',
+  'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND COLUMN_NAME = 'city_search') = 0,
+  'ALTER TABLE owners ADD COLUMN city_search VARCHAR(160) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin',
+  'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND INDEX_NAME = 'owners_last_name_search') = 0,
+  'CREATE INDEX owners_last_name_search ON owners (last_name_search)', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND INDEX_NAME = 'owners_telephone') = 0,
+  'CREATE INDEX owners_telephone ON owners (telephone)', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND INDEX_NAME = 'owners_first_name') = 0,
+  'CREATE INDEX owners_first_name ON owners (first_name_search, last_name_search)', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'owners' AND INDEX_NAME = 'owners_city') = 0,
+  'CREATE INDEX owners_city ON owners (city_search, last_name_search)', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+
 CREATE TABLE IF NOT EXISTS pets (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   name VARCHAR(30),
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED NOT NULL,
-  INDEX(name),
+  -- name without case and accents, maintained by the application
+  name_search VARCHAR(60) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin,
+  -- covers the owner search by pet name
+  INDEX pets_name_search (name_search, owner_id),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
 ) engine=InnoDB;
 
+-- added to pets tables created by earlier versions, which may still have the pets_name
+-- index on the name itself; the application fills in the keys of existing rows at startup
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'pets' AND COLUMN_NAME = 'name_search') = 0,
+  'ALTER TABLE pets ADD COLUMN name_search VARCHAR(60) CHARACTER SET utf8mb4 COLLATE utf8mb4_bin',
+  'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'pets' AND INDEX_NAME = 'pets_name_search') = 0,
+  'CREATE INDEX pets_name_search ON pets (name_search, owner_id)', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'pets' AND INDEX_NAME = 'pets_name') > 0,
+  'DROP INDEX pets_name ON pets', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+
 CREATE TABLE IF NOT EXISTS visits (
   id INT(4) UNSIGNED NOT NULL AUTO_INCREMENT PRIMARY KEY,
   pet_id INT(4) UNSIGNED NOT NULL,
   visit_date DATE,
   description VARCHAR(255),
+  -- visits of a pet, most recent first, and the visits of a pet between two dates
+  INDEX visits_pet_id_visit_date (pet_id, visit_date),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- added to visits tables created by earlier versions
+SET @upgrade = IF((SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()
+    AND TABLE_NAME = 'visits' AND INDEX_NAME = 'visits_pet_id_visit_date') = 0,
+  'CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date)', 'DO 0');
+PREPARE upgrade FROM @upgrade;
+EXECUTE upgrade;
+DEALLOCATE PREPARE upgrade;
+
+-- number of visits per day and pet type, kept up to date by the application
+CREATE TABLE IF NOT EXISTS visit_rollups (
+  visit_date DATE NOT NULL,
+  pet_type_id INT(4) UNSIGNED NOT NULL,
+  visits INT(10) UNSIGNED NOT NULL,
+  PRIMARY KEY (visit_date, pet_type_id),
+  FOREIGN KEY (pet_type_id) REFERENCES types(id)
+) engine=InnoDB;
+
+-- the highest visit id counted by the last rebuild of visit_rollups
+CREATE TABLE IF NOT EXISTS visit_rollups_state (
+  max_visit_id INT(4) UNSIGNED NOT NULL
+) engine=InnoDB;
+INSERT INTO visit_rollups_state SELECT 0 FROM DUAL WHERE NOT EXISTS (SELECT * FROM visit_rollups_state);
+
+-- ids of the pooled-ids profile, handed out by Hibernate in blocks of 50
+CREATE TABLE IF NOT EXISTS petclinic_ids (
+  next_val BIGINT NOT NULL
+) engine=InnoDB;
+INSERT INTO petclinic_ids SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT * FROM petclinic_ids);
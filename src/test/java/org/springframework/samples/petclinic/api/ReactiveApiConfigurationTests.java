@@ -0,0 +1,72 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReactiveApiConfiguration}.
+ */
+class ReactiveApiConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner().withUserConfiguration(
+			DataSourcePropertiesConfiguration.class, ReactiveApiConfiguration.class, ReactiveReadController.class);
+
+	@Test
+	void apiReadsH2() {
+		this.contextRunner.withPropertyValues("spring.datasource.url=jdbc:h2:mem:api").run((context) -> {
+			assertThat(context).hasSingleBean(ReactiveClinicReader.class);
+			assertThat(context).hasSingleBean(ReactiveReadController.class);
+		});
+	}
+
+	@Test
+	void apiIsLeftOutWithoutR2dbcDriver() {
+		this.contextRunner.withPropertyValues("spring.datasource.url=jdbc:hsqldb:mem:api").run((context) -> {
+			assertThat(context).hasNotFailed();
+			assertThat(context).doesNotHaveBean(ReactiveClinicReader.class);
+			assertThat(context).doesNotHaveBean(ReactiveReadController.class);
+		});
+	}
+
+	@Test
+	void apiCanBeDisabled() {
+		this.contextRunner.withPropertyValues("spring.datasource.url=jdbc:h2:mem:api", "petclinic.api.enabled=false")
+				.run((context) -> {
+					assertThat(context).doesNotHaveBean(ReactiveClinicReader.class);
+					assertThat(context).doesNotHaveBean(ReactiveReadController.class);
+				});
+	}
+
+	@Test
+	void mysqlHasDriver() {
+		assertThat(ReactiveApiConfiguration.hasDriver("jdbc:mysql://localhost/petclinic?useSSL=false")).isTrue();
+		assertThat(ReactiveApiConfiguration.hasDriver("jdbc:hsqldb:mem:petclinic")).isFalse();
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	@EnableConfigurationProperties(DataSourceProperties.class)
+	static class DataSourcePropertiesConfiguration {
+
+	}
+
+}
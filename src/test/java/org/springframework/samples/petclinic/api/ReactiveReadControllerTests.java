@@ -0,0 +1,110 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import io.r2dbc.spi.ConnectionFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link ReactiveReadController} and {@link ReactiveClinicReader}
+ */
+@SpringBootTest
+class ReactiveReadControllerTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private ReactiveClinicReader reader;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.context).build();
+	}
+
+	@Test
+	void shouldReadTheSameDatabaseAsJpa() {
+		assertThat(this.reader.findOwners(0, null).collectList().block()).isNotEmpty().first()
+				.satisfies((owner) -> assertThat(owner.getLastName()).isEqualTo("Franklin"));
+		assertThat(this.reader.findPetsByOwnerId(6).collectList().block()).extracting(PetResource::getName)
+				.containsExactly("Samantha", "Max");
+		assertThat(this.reader.findVisitsByPetId(7).collectList().block()).hasSize(2)
+				.allSatisfy((visit) -> assertThat(visit.getDate()).isNotNull());
+	}
+
+	@Test
+	void shouldResumeAfterTheLastSeenId() {
+		assertThat(this.reader.findPets(10, 2).collectList().block()).extracting(PetResource::getId).containsExactly(11,
+				12);
+		assertThat(this.reader.findVisits(3, 1).collectList().block()).extracting(VisitResource::getId)
+				.containsExactly(4);
+	}
+
+	@Test
+	void shouldStreamNewlineDelimitedJson() throws Exception {
+		MvcResult result = this.mockMvc.perform(
+				get("/api/owners").param("afterId", "8").param("limit", "2").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+		String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+		assertThat(lines).hasSize(2);
+		assertThat(lines[0]).contains("\"id\":9").contains("\"lastName\":\"Schroeder\"");
+		assertThat(lines[1]).contains("\"id\":10");
+	}
+
+	@Test
+	void shouldStreamVisitsOfAPet() throws Exception {
+		MvcResult result = this.mockMvc.perform(get("/api/pets/7/visits").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted()).andReturn();
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+		assertThat(result.getResponse().getContentAsString()).contains("\"petId\":7").contains("\"date\":\"20");
+	}
+
+	@Test
+	void shouldRejectNonPositiveLimit() throws Exception {
+		this.mockMvc.perform(get("/api/visits").param("limit", "0").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void shouldMapJdbcUrlsToR2dbcDrivers() {
+		ConnectionFactory mysql = ReactiveApiConfiguration.createConnectionFactory(
+				"jdbc:mysql://localhost/petclinic?rewriteBatchedStatements=true", "petclinic", "petclinic");
+		assertThat(mysql.getMetadata().getName()).isEqualTo("MySQL");
+		ConnectionFactory h2 = ReactiveApiConfiguration.createConnectionFactory("jdbc:h2:mem:test", "sa", "");
+		assertThat(h2.getMetadata().getName()).isEqualTo("H2");
+	}
+
+}
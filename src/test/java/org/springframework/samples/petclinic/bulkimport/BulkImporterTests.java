@@ -0,0 +1,130 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link BulkImporter}
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class BulkImporterTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private final List<BatchReport> reports = new ArrayList<>();
+
+	@Test
+	void shouldImportOwnersPetsAndVisitsInBatches() {
+		int owners = count("owners");
+		BulkImporter.Import run = new BulkImporter(this.jdbc, "h2", 2).start();
+
+		run.owners(csv("id,firstName,lastName,address,city,telephone", "101,Ada,Lovelace,1 Analytical St.,London,0123",
+				"102,\"Grace \"\"Amazing\"\"\",Hopper,\"2 Cobol Ave., Apt 3\",Arlington,0456",
+				"103,Alan,Turing,3 Enigma Rd.,Bletchley,0789"), this.reports::add);
+		run.pets(ndjson(
+				"{\"id\":201,\"name\":\"Babbage\",\"birthDate\":\"2019-03-01\",\"type\":\"Cat\",\"ownerId\":101}",
+				"{\"id\":202,\"name\":\"Mark\",\"birthDate\":\"2020-05-06\",\"type\":\"dog\",\"ownerId\":102}"),
+				this.reports::add);
+		run.visits(ndjson("{\"petId\":201,\"date\":\"2021-01-02\",\"description\":\"checkup\"}",
+				"{\"petId\":202,\"date\":\"2021-01-03\",\"description\":\"vaccination\"}"), this.reports::add);
+
+		assertThat(count("owners")).isEqualTo(owners + 3);
+		assertThat(this.reports).extracting(BatchReport::getTable).containsExactly("owners", "owners", "pets",
+				"visits");
+		assertThat(this.reports).extracting(BatchReport::getImported).containsExactly(2, 1, 2, 2);
+		assertThat(run.getSummary().getFailed()).isZero();
+		assertThat(
+				this.jdbc.queryForObject(
+						"SELECT o.last_name FROM visits v JOIN pets p ON p.id = v.pet_id"
+								+ " JOIN owners o ON o.id = p.owner_id WHERE v.description = 'vaccination'",
+						String.class)).isEqualTo("Hopper");
+		assertThat(this.jdbc.queryForObject("SELECT address FROM owners WHERE first_name = 'Grace \"Amazing\"'",
+				String.class)).isEqualTo("2 Cobol Ave., Apt 3");
+	}
+
+	@Test
+	void shouldReportInvalidRowsAndImportTheRest() {
+		BulkImporter.Import run = new BulkImporter(this.jdbc, "h2", 10).start();
+
+		run.owners(csv("id,firstName,lastName,address,city,telephone", "1,Ada,Lovelace,1 Analytical St.,London,0123",
+				"2,Grace,,2 Cobol Ave.,Arlington,0456", "3,Alan,Turing,3 Enigma Rd.,Bletchley,not-a-number",
+				"4,Too,Few"), this.reports::add);
+		run.pets(ndjson("{\"id\":1,\"name\":\"Babbage\",\"birthDate\":\"2019-03-01\",\"type\":\"cat\",\"ownerId\":1}",
+				"{\"id\":2,\"name\":\"Mark\",\"birthDate\":\"2020-05-06\",\"type\":\"dog\",\"ownerId\":2}",
+				"{\"id\":3,\"name\":\"Bombe\",\"birthDate\":\"yesterday\",\"type\":\"cat\",\"ownerId\":1}",
+				"{\"id\":4,\"name\":\"Polly\",\"birthDate\":\"2020-05-06\",\"type\":\"parrot\",\"ownerId\":1}",
+				"not json"), this.reports::add);
+
+		assertThat(run.getSummary().getOwners()).isEqualTo(1);
+		assertThat(run.getSummary().getPets()).isEqualTo(1);
+		assertThat(this.reports.get(0).getErrors()).extracting(RowError::getLine).containsExactly(3, 4, 5);
+		assertThat(this.reports.get(0).getErrors().get(0).getMessage()).isEqualTo("lastName is required");
+		assertThat(this.reports.get(1).getErrors()).extracting(RowError::getMessage).containsExactly(
+				"owner 2 was not imported", "birthDate is not a date (yyyy-MM-dd): yesterday", "unknown type: parrot",
+				this.reports.get(1).getErrors().get(3).getMessage());
+		assertThat(this.reports.get(1).getErrors().get(3).getMessage()).startsWith("malformed JSON");
+	}
+
+	@Test
+	void shouldReserveIdsAheadOfTheApplication() {
+		BulkImporter.Import run = new BulkImporter(this.jdbc, "h2", 10).start();
+		run.owners(csv("id,firstName,lastName,address,city,telephone", "1,Ada,Lovelace,1 Analytical St.,London,0123"),
+				this.reports::add);
+		int imported = this.jdbc.queryForObject("SELECT id FROM owners WHERE last_name_search = 'lovelace'",
+				Integer.class);
+
+		this.jdbc.update("INSERT INTO owners (first_name, last_name) VALUES ('New', 'Owner')");
+		assertThat(this.jdbc.queryForObject("SELECT MAX(id) FROM owners", Integer.class)).isEqualTo(imported + 1);
+	}
+
+	@Test
+	void shouldParseQuotedCsvValues() {
+		assertThat(ImportRecords.parseCsv("a, \"b,c\" ,\"d\"\"e\",")).containsExactly("a", "b,c", "d\"e", "");
+	}
+
+	private ImportRecords csv(String... lines) {
+		return records(ImportRecords.Format.CSV, lines);
+	}
+
+	private ImportRecords ndjson(String... lines) {
+		return records(ImportRecords.Format.NDJSON, lines);
+	}
+
+	private ImportRecords records(ImportRecords.Format format, String... lines) {
+		return new ImportRecords(new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)),
+				format);
+	}
+
+	private int count(String table) {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+}
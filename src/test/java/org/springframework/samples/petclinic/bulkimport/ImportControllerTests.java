@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.bulkimport;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.support.AbstractApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.samples.petclinic.model.BulkLoadEvent;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link ImportController}
+ */
+@SpringBootTest
+class ImportControllerTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	private final List<BulkLoadEvent> bulkLoads = new CopyOnWriteArrayList<>();
+
+	private final ApplicationListener<PayloadApplicationEvent<?>> recorder = (event) -> {
+		if (event.getPayload() instanceof BulkLoadEvent) {
+			this.bulkLoads.add((BulkLoadEvent) event.getPayload());
+		}
+	};
+
+	@BeforeEach
+	void recordBulkLoads() {
+		multicaster().addApplicationListener(this.recorder);
+	}
+
+	@AfterEach
+	void stopRecording() {
+		multicaster().removeApplicationListener(this.recorder);
+	}
+
+	@Test
+	void shouldReportProgressPerBatchAndSummary() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(this.context).build();
+		MockMultipartFile owners = new MockMultipartFile("owners", "owners.csv", "text/csv",
+				("id,firstName,lastName,address,city,telephone\n" + "7,Imported,Owner,1 Upload St.,Madison,0123\n")
+						.getBytes(StandardCharsets.UTF_8));
+		MockMultipartFile pets = new MockMultipartFile("pets", "pets.ndjson", "application/x-ndjson",
+				("{\"id\":8,\"name\":\"Uploaded\",\"birthDate\":\"2020-01-01\",\"type\":\"cat\",\"ownerId\":7}\n"
+						+ "{\"id\":9,\"name\":\"Orphan\",\"birthDate\":\"2020-01-01\",\"type\":\"cat\",\"ownerId\":99}\n")
+								.getBytes(StandardCharsets.UTF_8));
+
+		MvcResult result = mockMvc.perform(multipart("/import").file(owners).file(pets))
+				.andExpect(request().asyncStarted()).andReturn();
+		mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+		String[] lines = result.getResponse().getContentAsString().split("\n");
+		assertThat(lines).hasSize(3);
+		assertThat(lines[0]).contains("\"table\":\"owners\"").contains("\"imported\":1");
+		assertThat(lines[1]).contains("\"table\":\"pets\"").contains("\"failed\":1")
+				.contains("\"line\":2,\"message\":\"owner 99 was not imported\"");
+		assertThat(lines[2]).isEqualTo("{\"owners\":1,\"pets\":1,\"visits\":0,\"failed\":1}");
+		assertThat(this.bulkLoads).extracting(BulkLoadEvent::getSource).containsExactly("import");
+	}
+
+	private ApplicationEventMulticaster multicaster() {
+		return this.context.getBean(AbstractApplicationContext.APPLICATION_EVENT_MULTICASTER_BEAN_NAME,
+				ApplicationEventMulticaster.class);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.export;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link ExportController}
+ */
+@SpringBootTest
+class ExportControllerTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private NdjsonExporter exporter;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.context).build();
+	}
+
+	@Test
+	void shouldExportOneJsonObjectPerLine() throws Exception {
+		String[] lines = export(get("/export/pets.ndjson")).split("\n");
+		assertThat(lines).hasSizeGreaterThanOrEqualTo(13);
+		assertThat(lines[0])
+				.isEqualTo("{\"id\":1,\"name\":\"Leo\",\"birthDate\":\"2010-09-07\",\"type\":\"cat\",\"ownerId\":1}");
+	}
+
+	@Test
+	void shouldResumeAfterTheLastExportedId() throws Exception {
+		String visits = export(get("/export/visits.ndjson").param("afterId", "2"));
+		assertThat(visits).startsWith("{\"id\":3,\"petId\":8,");
+		assertThat(visits).doesNotContain("\"id\":2,");
+	}
+
+	@Test
+	void shouldCompressWhenAccepted() throws Exception {
+		MvcResult result = this.mockMvc
+				.perform(get("/export/owners.ndjson").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+				.andExpect(request().asyncStarted()).andReturn();
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+		try (InputStream in = new GZIPInputStream(
+				new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+			assertThat(StreamUtils.copyToString(in, StandardCharsets.UTF_8))
+					.startsWith("{\"id\":1,\"firstName\":\"George\",\"lastName\":\"Franklin\"");
+		}
+	}
+
+	@Test
+	void shouldNotCompressWhenRefused() throws Exception {
+		String owners = export(get("/export/owners.ndjson").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"));
+		assertThat(owners).startsWith("{\"id\":1,");
+	}
+
+	@Test
+	void shouldHonourQualityValues() {
+		assertThat(ExportController.acceptsGzip("gzip")).isTrue();
+		assertThat(ExportController.acceptsGzip("deflate, gzip;q=0.5")).isTrue();
+		assertThat(ExportController.acceptsGzip("*")).isTrue();
+		assertThat(ExportController.acceptsGzip("gzip;q=0")).isFalse();
+		assertThat(ExportController.acceptsGzip("gzip; q=0.0, *")).isFalse();
+		assertThat(ExportController.acceptsGzip("*;q=0")).isFalse();
+		assertThat(ExportController.acceptsGzip("identity")).isFalse();
+		assertThat(ExportController.acceptsGzip(null)).isFalse();
+	}
+
+	@Test
+	void shouldStreamRowByRowOnMysql() {
+		assertThat(NdjsonExporter.fetchSize("mysql")).isEqualTo(Integer.MIN_VALUE);
+		assertThat(NdjsonExporter.fetchSize("h2")).isEqualTo(NdjsonExporter.DEFAULT_FETCH_SIZE);
+		assertThat(this.exporter.getFetchSize()).isEqualTo(NdjsonExporter.DEFAULT_FETCH_SIZE);
+	}
+
+	private String export(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = this.mockMvc.perform(request).andExpect(request().asyncStarted()).andReturn();
+		this.mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+		return result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+	}
+
+}
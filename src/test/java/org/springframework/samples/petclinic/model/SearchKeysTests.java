@@ -0,0 +1,51 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link SearchKeys}
+ */
+class SearchKeysTests {
+
+	@Test
+	void shouldFoldCaseAndStripAccents() {
+		assertThat(SearchKeys.normalize("Müller")).isEqualTo("muller");
+		assertThat(SearchKeys.normalize("MÜLLER")).isEqualTo("muller");
+		assertThat(SearchKeys.normalize("Ramírez")).isEqualTo("ramirez");
+		assertThat(SearchKeys.normalize("Ångström")).isEqualTo("angstrom");
+	}
+
+	@Test
+	void shouldFoldComposedAndDecomposedFormsAlike() {
+		assertThat(SearchKeys.normalize("José")).isEqualTo(SearchKeys.normalize("José")).isEqualTo("jose");
+	}
+
+	@Test
+	void shouldBeIdempotent() {
+		String key = SearchKeys.normalize("İstanbul Çelik");
+		assertThat(SearchKeys.normalize(key)).isEqualTo(key).isEqualTo("istanbul celik");
+	}
+
+	@Test
+	void shouldNormalizeNullToEmpty() {
+		assertThat(SearchKeys.normalize(null)).isEmpty();
+	}
+
+}
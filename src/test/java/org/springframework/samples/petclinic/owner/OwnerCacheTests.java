@@ -0,0 +1,132 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the <code>owners</code> aggregate cache. Saves are committed, as
+ * the cache is only evicted on commit, and reverted by each test.
+ */
+@SpringBootTest
+class OwnerCacheTests {
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void shouldServeCopiesFromCache() {
+		double hits = cacheGets("hit");
+		Owner owner = this.owners.findById(1);
+		Owner cached = this.owners.findById(1);
+		assertThat(cached).isNotSameAs(owner);
+		assertThat(cached.getLastName()).isEqualTo(owner.getLastName());
+		assertThat(cached.getPets()).hasSameSizeAs(owner.getPets());
+		assertThat(cached.getPets().get(0).getType().getName()).isEqualTo("cat");
+
+		// modifying a copy does not leak into the cache
+		cached.addPet(new Pet());
+		assertThat(this.owners.findById(1).getPets()).hasSameSizeAs(owner.getPets());
+		assertThat(cacheGets("hit")).isGreaterThanOrEqualTo(hits + 2);
+	}
+
+	@Test
+	void shouldEvictOnOwnerSaveOnceCommitted() {
+		String city = this.owners.findById(1).getCity();
+		try {
+			inTransaction(() -> {
+				Owner owner = this.owners.findById(1);
+				owner.setCity("Middleton");
+				this.owners.save(owner);
+				assertThat(this.owners.findById(1).getCity()).isEqualTo(city);
+			});
+			assertThat(this.owners.findById(1).getCity()).isEqualTo("Middleton");
+		}
+		finally {
+			inTransaction(() -> {
+				Owner owner = this.owners.findById(1);
+				owner.setCity(city);
+				this.owners.save(owner);
+			});
+		}
+	}
+
+	@Test
+	void shouldNotCacheRolledBackChanges() {
+		String city = this.owners.findById(1).getCity();
+		this.cacheManager.getCache("owners").evict(1);
+		new TransactionTemplate(this.transactionManager).executeWithoutResult((status) -> {
+			Owner owner = this.owners.findById(1);
+			owner.setCity("Middleton");
+			this.owners.save(owner);
+			assertThat(this.owners.findById(1).getCity()).isEqualTo("Middleton");
+			status.setRollbackOnly();
+		});
+		assertThat(this.owners.findById(1).getCity()).isEqualTo(city);
+	}
+
+	@Test
+	void shouldEvictOnPetSaveOnceCommitted() {
+		assertThat(this.owners.findById(6).getPet("Samantha")).isNotNull();
+		try {
+			renamePet(6, "Samantha", "Sam");
+			assertThat(this.owners.findById(6).getPet("Sam")).isNotNull();
+		}
+		finally {
+			renamePet(6, "Sam", "Samantha");
+		}
+	}
+
+	private void renamePet(int ownerId, String name, String newName) {
+		inTransaction(() -> {
+			Owner owner = this.owners.findById(ownerId);
+			Pet pet = owner.getPet(name);
+			pet.setName(newName);
+			this.pets.save(pet);
+		});
+	}
+
+	private void inTransaction(Runnable action) {
+		new TransactionTemplate(this.transactionManager).executeWithoutResult((status) -> action.run());
+	}
+
+	private double cacheGets(String result) {
+		return this.registry.get("cache.gets").tag("cache", "owners").tag("result", result).functionCounter().count();
+	}
+
+}
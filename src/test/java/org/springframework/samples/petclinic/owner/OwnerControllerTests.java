@@ -16,10 +16,14 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -30,9 +34,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.LongSupplier;
 
 import org.assertj.core.util.Lists;
 import org.hamcrest.BaseMatcher;
@@ -43,12 +50,13 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.system.PaginationCounter;
 import org.springframework.samples.petclinic.visit.Visit;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 /**
  * Test class for {@link OwnerController}
@@ -69,6 +77,12 @@ class OwnerControllerTests {
 	@MockBean
 	private VisitRepository visits;
 
+	@MockBean
+	private PaginationCounter counter;
+
+	@MockBean
+	private OwnerLastNameIndex lastNameIndex;
+
 	private Owner george;
 
 	@BeforeEach
@@ -87,17 +101,22 @@ class OwnerControllerTests {
 		max.setType(dog);
 		max.setName("Max");
 		max.setBirthDate(LocalDate.now());
-		george.setPetsInternal(Collections.singleton(max));
+		george.setPetsInternal(Collections.singletonList(max));
 
-		given(this.owners.findByLastName(eq("Franklin"), any(Pageable.class)))
-				.willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
+		given(this.owners.findIdsByLastName(eq("Franklin"), any(Pageable.class)))
+				.willReturn(Lists.newArrayList(TEST_OWNER_ID));
+		given(this.owners.findByIdIn(Lists.newArrayList(TEST_OWNER_ID))).willReturn(Lists.newArrayList(george));
 
 		given(this.owners.findAll(any(Pageable.class))).willReturn(new PageImpl<Owner>(Lists.newArrayList(george)));
 
 		given(this.owners.findById(TEST_OWNER_ID)).willReturn(george);
+		given(this.owners.findByIdWithoutPets(TEST_OWNER_ID)).willReturn(george);
+		given(this.counter.count(anyString(), any())).willAnswer(inv -> inv.<LongSupplier>getArgument(1).getAsLong());
 		Visit visit = new Visit();
 		visit.setDate(LocalDate.now());
-		given(this.visits.findByPetId(max.getId())).willReturn(Collections.singletonList(visit));
+		visit.setPetId(max.getId());
+		given(this.visits.findLatestByPetIdIn(Collections.singletonList(max.getId()),
+				VisitHistoryController.PAGE_SIZE + 1)).willReturn(Collections.singletonList(visit));
 
 	}
 
@@ -132,24 +151,107 @@ class OwnerControllerTests {
 
 	@Test
 	void testProcessFindFormSuccess() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george, new Owner()));
-		Mockito.when(this.owners.findByLastName(anyString(), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1")).andExpect(status().isOk()).andExpect(view().name("owners/ownersList"));
+		Mockito.when(this.owners.findIdsByLastName(anyString(), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList(TEST_OWNER_ID, 2));
+		Mockito.when(this.owners.findByIdIn(Lists.newArrayList(TEST_OWNER_ID, 2)))
+				.thenReturn(Lists.newArrayList(george, new Owner()));
+		mockMvc.perform(get("/owners")).andExpect(status().isOk())
+				.andExpect(model().attribute("nextCursor", nullValue()))
+				.andExpect(model().attribute("previousCursor", nullValue()))
+				.andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessFindFormExposesNextCursor() throws Exception {
+		List<Owner> page = Lists.newArrayList();
+		for (int id = 1; id <= 5; id++) {
+			Owner owner = new Owner();
+			owner.setId(id);
+			owner.setLastName("Davis");
+			page.add(owner);
+		}
+		Mockito.when(this.owners.findIdsByLastName(eq("Davis"), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList(1, 2, 3, 4, 5, 6));
+		Mockito.when(this.owners.findByIdIn(Lists.newArrayList(1, 2, 3, 4, 5))).thenReturn(page);
+		Mockito.when(this.owners.findIdsByLastNameAfter(eq("Davis"), eq("davis"), eq(5), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList(6));
+		Mockito.when(this.owners.findByIdIn(Lists.newArrayList(6))).thenReturn(Lists.newArrayList(george));
+
+		MvcResult first = mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk())
+				.andExpect(model().attribute("previousCursor", nullValue()))
+				.andExpect(model().attribute("nextCursor", notNullValue())).andExpect(view().name("owners/ownersList"))
+				.andReturn();
+		String next = (String) first.getModelAndView().getModel().get("nextCursor");
+
+		mockMvc.perform(get("/owners").param("lastName", "Davis").param("after", next)).andExpect(status().isOk())
+				.andExpect(model().attribute("previousCursor", notNullValue()))
+				.andExpect(model().attribute("nextCursor", nullValue()))
+				.andExpect(model().attribute("listOwners", hasSize(1))).andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessFindFormKeepsStaleCursorOwnerOnPreviousPage() throws Exception {
+		Owner davis = new Owner();
+		davis.setId(5);
+		davis.setLastName("Davis");
+		Mockito.when(this.owners.findIdsByLastNameAfter(eq("Davis"), eq("davis"), eq(5), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList());
+
+		MvcResult stale = mockMvc
+				.perform(get("/owners").param("lastName", "Davis").param("after", OwnerCursor.of(davis).encode()))
+				.andExpect(status().isOk()).andExpect(model().attribute("listOwners", hasSize(0))).andReturn();
+		OwnerCursor previous = OwnerCursor.decode((String) stale.getModelAndView().getModel().get("previousCursor"));
+
+		// seeking before the previous cursor includes the owner the stale cursor pointed
+		// at
+		assertThat(previous.getLastNameSearch()).isEqualTo("davis");
+		assertThat(previous.getId()).isEqualTo(6);
+	}
+
+	@Test
+	void testProcessFindFormShowsLastPage() throws Exception {
+		List<Owner> page = Lists.newArrayList();
+		for (int id = 2; id <= 6; id++) {
+			Owner owner = new Owner();
+			owner.setId(id);
+			owner.setLastName("Davis");
+			page.add(owner);
+		}
+		Mockito.when(this.owners.findLastIdsByLastName(eq("Davis"), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList(6, 5, 4, 3, 2, 1));
+		Mockito.when(this.owners.findByIdIn(Lists.newArrayList(6, 5, 4, 3, 2))).thenReturn(page);
+
+		mockMvc.perform(get("/owners").param("lastName", "Davis").param("last", "true")).andExpect(status().isOk())
+				.andExpect(model().attribute("previousCursor", notNullValue()))
+				.andExpect(model().attribute("nextCursor", nullValue()))
+				.andExpect(model().attribute("listOwners", hasSize(5))).andExpect(view().name("owners/ownersList"));
+	}
+
+	@Test
+	void testProcessFindFormUsesLastNameIndex() throws Exception {
+		OwnerLastNameIndex.Snapshot index = new OwnerLastNameIndex.Snapshot(Instant.now());
+		index.put(TEST_OWNER_ID, "Franklin");
+		index.put(2, "Davis");
+		given(this.lastNameIndex.snapshot()).willReturn(index);
+		given(this.owners.findByIdIn(Lists.newArrayList(2, TEST_OWNER_ID)))
+				.willReturn(Lists.newArrayList(george, new Owner()));
+		mockMvc.perform(get("/owners")).andExpect(status().isOk()).andExpect(model().attribute("totalItems", 2L))
+				.andExpect(view().name("owners/ownersList"));
+		Mockito.verify(this.owners, Mockito.never()).findIdsByLastName(anyString(), any(Pageable.class));
+		Mockito.verify(this.owners, Mockito.never()).countByLastName(anyString());
 	}
 
 	@Test
 	void testProcessFindFormByLastName() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList(george));
-		Mockito.when(this.owners.findByLastName(eq("Franklin"), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1").param("lastName", "Franklin")).andExpect(status().is3xxRedirection())
+		mockMvc.perform(get("/owners").param("lastName", "Franklin")).andExpect(status().is3xxRedirection())
 				.andExpect(view().name("redirect:/owners/" + TEST_OWNER_ID));
 	}
 
 	@Test
 	void testProcessFindFormNoOwnersFound() throws Exception {
-		Page<Owner> tasks = new PageImpl<Owner>(Lists.newArrayList());
-		Mockito.when(this.owners.findByLastName(eq("Unknown Surname"), any(Pageable.class))).thenReturn(tasks);
-		mockMvc.perform(get("/owners?page=1").param("lastName", "Unknown Surname")).andExpect(status().isOk())
+		Mockito.when(this.owners.findIdsByLastName(eq("Unknown Surname"), any(Pageable.class)))
+				.thenReturn(Lists.newArrayList());
+		mockMvc.perform(get("/owners").param("lastName", "Unknown Surname")).andExpect(status().isOk())
 				.andExpect(model().attributeHasFieldErrors("owner", "lastName"))
 				.andExpect(model().attributeHasFieldErrorCode("owner", "lastName", "notFound"))
 				.andExpect(view().name("owners/findOwners"));
@@ -215,4 +317,23 @@ class OwnerControllerTests {
 				}))).andExpect(view().name("owners/ownerDetails"));
 	}
 
+	@Test
+	void testShowOwnerWithMoreVisitsThanShown() throws Exception {
+		List<Visit> latest = new ArrayList<>();
+		for (int day = 1; day <= VisitHistoryController.PAGE_SIZE + 1; day++) {
+			Visit visit = new Visit();
+			visit.setDate(LocalDate.of(2021, 1, day));
+			visit.setPetId(1);
+			latest.add(visit);
+		}
+		given(this.visits.findLatestByPetIdIn(Collections.singletonList(1), VisitHistoryController.PAGE_SIZE + 1))
+				.willReturn(latest);
+
+		MvcResult result = mockMvc.perform(get("/owners/{ownerId}", TEST_OWNER_ID)).andExpect(status().isOk())
+				.andExpect(model().attribute("moreVisits", Collections.singleton(1))).andReturn();
+		Owner owner = (Owner) result.getModelAndView().getModel().get("owner");
+		assertThat(owner.getPets().get(0).getVisits()).hasSize(VisitHistoryController.PAGE_SIZE);
+		assertThat(result.getResponse().getContentAsString()).contains("/owners/1/pets/1/visits?page=1");
+	}
+
 }
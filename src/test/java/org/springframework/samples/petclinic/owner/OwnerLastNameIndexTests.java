@@ -0,0 +1,189 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.samples.petclinic.owner.OwnerLastNameIndex.Consistency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * Test class for {@link OwnerLastNameIndex}
+ */
+@ExtendWith(MockitoExtension.class)
+class OwnerLastNameIndexTests {
+
+	@Mock
+	private OwnerRepository owners;
+
+	private final TestClock clock = new TestClock();
+
+	@BeforeEach
+	void setup() {
+		List<Object[]> rows = new ArrayList<>();
+		rows.add(new Object[] { 1, "Franklin" });
+		rows.add(new Object[] { 2, "Davis" });
+		rows.add(new Object[] { 3, "Rodriquez" });
+		rows.add(new Object[] { 4, "Davis" });
+		rows.add(new Object[] { 5, "davison" });
+		given(this.owners.findLastNamesAfterId(eq(0), any(Pageable.class))).willReturn(rows);
+		lenient().when(this.owners.findLastNamesAfterId(eq(5), any(Pageable.class)))
+				.thenReturn(Collections.emptyList());
+	}
+
+	@Test
+	void shouldFindIdsByPrefixIgnoringCase() {
+		OwnerLastNameIndex index = index(Integer.MAX_VALUE, Consistency.EVENTUAL, Clock.systemUTC());
+		assertThat(index.snapshot()).isNotNull();
+		assertThat(index.snapshot().findIds("dav", null, null, 10)).containsExactly(2, 4, 5);
+		assertThat(index.snapshot().count("Dav")).isEqualTo(3);
+		assertThat(index.snapshot().count("")).isEqualTo(5);
+		assertThat(index.snapshot().count("Schultz")).isZero();
+	}
+
+	@Test
+	void shouldSeekFromCursors() {
+		OwnerLastNameIndex index = index(Integer.MAX_VALUE, Consistency.EVENTUAL, Clock.systemUTC());
+		OwnerCursor cursor = OwnerCursor.of(owner(2, "Davis"));
+		assertThat(index.snapshot().findIds("Dav", cursor, null, 1)).containsExactly(4);
+		assertThat(index.snapshot().findIds("Dav", OwnerCursor.of(owner(5, "davison")), null, 10)).isEmpty();
+		assertThat(index.snapshot().findIds("", null, OwnerCursor.of(owner(1, "Franklin")), 2)).containsExactly(5, 4);
+		assertThat(index.snapshot().findIds("Dav", null, OwnerCursor.of(owner(4, "Davis")).justAfter(), 10))
+				.containsExactly(4, 2);
+		assertThat(index.snapshot().findLastIds("Dav", 2)).containsExactly(5, 4);
+	}
+
+	@Test
+	void shouldFollowSavedOwners() {
+		OwnerLastNameIndex index = index(Integer.MAX_VALUE, Consistency.EVENTUAL, Clock.systemUTC());
+		index.onOwnerSaved(new OwnerSavedEvent(owner(1, "Davies")));
+		index.onOwnerSaved(new OwnerSavedEvent(owner(6, "Schultz")));
+		assertThat(index.snapshot().findIds("Dav", null, null, 10)).containsExactly(1, 2, 4, 5);
+		assertThat(index.snapshot().findIds("Frank", null, null, 10)).isEmpty();
+		assertThat(index.snapshot().count("Schultz")).isEqualTo(1);
+		assertThat(index.snapshot().count("Dav")).isEqualTo(4);
+		assertThat(index.snapshot().count("Frank")).isZero();
+		assertThat(index.snapshot().count("")).isEqualTo(6);
+		index.onOwnerSaved(new OwnerSavedEvent(owner(1, "Franklin")));
+		assertThat(index.snapshot().count("Dav")).isEqualTo(3);
+		assertThat(index.snapshot().count("Frank")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldBeUnavailableOverMemoryBudget() {
+		OwnerLastNameIndex index = index(4, Consistency.EVENTUAL, Clock.systemUTC());
+		assertThat(index.snapshot()).isNull();
+	}
+
+	@Test
+	void shouldKeepAnsweringFromATakenSnapshot() {
+		OwnerLastNameIndex index = index(5, Consistency.EVENTUAL, Clock.systemUTC());
+		OwnerLastNameIndex.Snapshot snapshot = index.snapshot();
+		index.onOwnerSaved(new OwnerSavedEvent(owner(6, "Schultz")));
+		List<Object[]> rows = new ArrayList<>(this.owners.findLastNamesAfterId(0, PageRequest.of(0, 1)));
+		rows.add(new Object[] { 6, "Schultz" });
+		given(this.owners.findLastNamesAfterId(eq(0), any(Pageable.class))).willReturn(rows);
+		// the rebuild goes over budget and drops the index
+		index.rebuild();
+		assertThat(index.snapshot()).isNull();
+		assertThat(snapshot.findIds("Dav", null, null, 10)).containsExactly(2, 4, 5);
+		assertThat(snapshot.count("")).isEqualTo(6);
+	}
+
+	@Test
+	void shouldBeUnavailableWhenStale() {
+		OwnerLastNameIndex index = index(Integer.MAX_VALUE, Consistency.BOUNDED, this.clock);
+		assertThat(index.snapshot()).isNotNull();
+
+		this.clock.advance(Duration.ofMinutes(11));
+		given(this.owners.findLastNamesAfterId(eq(0), any(Pageable.class))).willReturn(Collections.emptyList());
+		// the stale index falls back and rebuilds, here synchronously
+		assertThat(index.snapshot()).isNull();
+		assertThat(index.snapshot()).isNotNull();
+		assertThat(index.snapshot().count("")).isZero();
+	}
+
+	@Test
+	void shouldBeUnavailableWhenDisabled() {
+		Mockito.reset(this.owners);
+		OwnerLastNameIndex index = new OwnerLastNameIndex(this.owners, new SyncTaskExecutor(), false, Integer.MAX_VALUE,
+				Consistency.EVENTUAL, Duration.ofMinutes(10), Clock.systemUTC());
+		index.onApplicationReady();
+		assertThat(index.snapshot()).isNull();
+	}
+
+	private OwnerLastNameIndex index(int maxEntries, Consistency consistency, Clock clock) {
+		OwnerLastNameIndex index = new OwnerLastNameIndex(this.owners, new SyncTaskExecutor(), true, maxEntries,
+				consistency, Duration.ofMinutes(10), clock);
+		index.onApplicationReady();
+		return index;
+	}
+
+	private static final class TestClock extends Clock {
+
+		private Instant instant = Instant.parse("2020-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.instant = this.instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.instant;
+		}
+
+	}
+
+	private static Owner owner(int id, String lastName) {
+		Owner owner = new Owner();
+		owner.setId(id);
+		owner.setLastName(lastName);
+		return owner;
+	}
+
+}
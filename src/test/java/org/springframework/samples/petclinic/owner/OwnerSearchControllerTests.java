@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+/**
+ * Test class for {@link OwnerSearchController}
+ */
+@WebMvcTest(OwnerSearchController.class)
+class OwnerSearchControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private OwnerSearchPlanner planner;
+
+	@MockBean
+	private OwnerRepository owners;
+
+	@Test
+	void shouldShowEmptyForm() throws Exception {
+		this.mockMvc.perform(get("/owners/search")).andExpect(status().isOk())
+				.andExpect(view().name("owners/searchOwners")).andExpect(model().attributeDoesNotExist("listOwners"));
+		verify(this.planner, never()).plan(any());
+	}
+
+	@Test
+	void shouldListMatchingOwners() throws Exception {
+		Owner george = new Owner();
+		george.setId(1);
+		george.setFirstName("George");
+		george.setLastName("Franklin");
+		OwnerSearchPlan plan = OwnerSearchPlan.unplanned(new OwnerSearch());
+		given(this.planner.plan(any())).willReturn(plan);
+		given(this.planner.findIds(any(), isNull(), anyInt())).willReturn(Collections.singletonList(1));
+		given(this.owners.findByIdIn(Arrays.asList(1))).willReturn(Collections.singletonList(george));
+
+		this.mockMvc.perform(get("/owners/search").param("telephone", "608 555 1023").param("petName", "Leo"))
+				.andExpect(status().isOk()).andExpect(view().name("owners/searchOwners"))
+				.andExpect(model().attribute("search", hasProperty("telephone", is("6085551023"))))
+				.andExpect(model().attribute("listOwners", Collections.singletonList(george)))
+				.andExpect(model().attributeDoesNotExist("nextCursor"));
+	}
+
+	@Test
+	void shouldShowNoMatches() throws Exception {
+		given(this.planner.plan(any())).willReturn(OwnerSearchPlan.unplanned(new OwnerSearch()));
+		given(this.planner.findIds(any(), isNull(), anyInt())).willReturn(Collections.emptyList());
+
+		this.mockMvc.perform(get("/owners/search").param("city", "Nowhere")).andExpect(status().isOk())
+				.andExpect(model().attribute("listOwners", Collections.emptyList()));
+	}
+
+}
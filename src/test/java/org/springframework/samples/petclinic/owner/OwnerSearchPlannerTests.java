@@ -0,0 +1,148 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.OwnerSearchPlan.Criterion;
+import org.springframework.samples.petclinic.owner.OwnerSearchPlan.Step;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link OwnerSearchPlanner}
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class OwnerSearchPlannerTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void shouldFindOwnersByPetName() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setPetName("Lucky");
+
+		assertThat(planner.findIds(planner.plan(search), null, 10)).containsExactly(7, 10);
+	}
+
+	@Test
+	void shouldCombineCriteria() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setCity("Madison");
+		search.setPetName("Leo");
+		search.setLastName("frank");
+		search.setTelephone("608-555-1023");
+
+		assertThat(planner.findIds(planner.plan(search), null, 10)).containsExactly(1);
+	}
+
+	@Test
+	void shouldMatchFirstNameAndCityIgnoringCaseAndAccents() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setFirstName("GEORGE");
+		search.setCity("mádison");
+
+		assertThat(planner.findIds(planner.plan(search), null, 10)).containsExactly(1);
+	}
+
+	@Test
+	void shouldMatchPetNameIgnoringCaseAndAccents() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setPetName("LÚCKY");
+
+		assertThat(planner.findIds(planner.plan(search), null, 10)).containsExactly(7, 10);
+	}
+
+	@Test
+	void shouldStartWithTheMostSelectiveCriterion() {
+		for (int i = 0; i < 3; i++) {
+			this.jdbc.update("INSERT INTO owners (first_name, last_name, city, telephone, last_name_search, "
+					+ "first_name_search, city_search) VALUES ('Jean', 'Doe', 'Madison', '6085550000', 'doe', 'jean', "
+					+ "'madison')");
+		}
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setFirstName("Jean");
+		search.setCity("Monona");
+
+		OwnerSearchPlan plan = planner.plan(search);
+		assertThat(plan.getSteps()).extracting(Step::getCriterion).containsExactly(Criterion.CITY,
+				Criterion.FIRST_NAME);
+		assertThat(plan.getSteps()).extracting(Step::getEstimate).containsExactly(2L, 4L);
+		assertThat(plan.isUseIndex()).isTrue();
+		assertThat(planner.findIds(plan, null, 10)).containsExactly(6);
+	}
+
+	@Test
+	void shouldDriveThroughPetsWhenPetNameIsMostSelective() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setCity("Madison");
+		search.setPetName("Leo");
+
+		OwnerSearchPlan plan = planner.plan(search);
+		assertThat(plan.getSteps().get(0).getCriterion()).isEqualTo(Criterion.PET_NAME);
+		assertThat(planner.findIds(plan, null, 10)).containsExactly(1);
+	}
+
+	@Test
+	void shouldStopProbingWhenACriterionMatchesNothing() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setTelephone("0000000000");
+		search.setCity("Madison");
+
+		OwnerSearchPlan plan = planner.plan(search);
+		assertThat(plan.isEmpty()).isTrue();
+		assertThat(plan.getSteps()).extracting(Step::getEstimate).containsExactly(0L, -1L);
+		assertThat(planner.findIds(plan, null, 10)).isEmpty();
+	}
+
+	@Test
+	void shouldContinueAfterCursor() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "h2");
+		OwnerSearch search = new OwnerSearch();
+		search.setCity("Madison");
+		OwnerSearchPlan plan = planner.plan(search);
+
+		assertThat(planner.findIds(plan, null, 2)).containsExactly(8, 1);
+		Owner franklin = new Owner();
+		franklin.setId(1);
+		franklin.setLastName("Franklin");
+		assertThat(planner.findIds(plan, OwnerCursor.of(franklin), 2)).containsExactly(5, 9);
+	}
+
+	@Test
+	void shouldNotHintIndexesOnHsqldb() {
+		OwnerSearchPlanner planner = new OwnerSearchPlanner(this.jdbc, "hsqldb");
+		OwnerSearch search = new OwnerSearch();
+		search.setFirstName("Jean");
+		search.setCity("Monona");
+
+		assertThat(planner.plan(search).isUseIndex()).isFalse();
+	}
+
+}
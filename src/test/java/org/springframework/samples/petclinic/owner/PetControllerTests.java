@@ -37,7 +37,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  * @author Colin But
  */
 @WebMvcTest(value = PetController.class,
-		includeFilters = @ComponentScan.Filter(value = PetTypeFormatter.class, type = FilterType.ASSIGNABLE_TYPE))
+		includeFilters = @ComponentScan.Filter(value = { PetTypeFormatter.class, PetTypeCache.class },
+				type = FilterType.ASSIGNABLE_TYPE))
 class PetControllerTests {
 
 	private static final int TEST_OWNER_ID = 1;
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.owner;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for {@link PetTypeCache} and {@link PetTypeChangeListener}.
+ */
+@SpringBootTest
+class PetTypeCacheTests {
+
+	@Autowired
+	private PetTypeCache petTypes;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@AfterEach
+	void evict() {
+		this.petTypes.evict();
+	}
+
+	@Test
+	void shouldServeTypesFromCache() {
+		Map<String, PetType> types = this.petTypes.getTypesByName();
+		assertThat(types).containsKeys("cat", "dog", "hamster");
+		assertThat(new ArrayList<>(types.keySet())).isSorted();
+		assertThat(this.petTypes.getTypesByName()).isSameAs(types);
+	}
+
+	@Test
+	void shouldEvictWhenTypeChangesCommit() {
+		Map<String, PetType> types = this.petTypes.getTypesByName();
+		TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+		transaction.executeWithoutResult((status) -> {
+			PetType ferret = new PetType();
+			ferret.setName("ferret");
+			this.entityManager.persist(ferret);
+			this.entityManager.flush();
+			assertThat(this.petTypes.getTypesByName()).isSameAs(types);
+		});
+		try {
+			Map<String, PetType> reloaded = this.petTypes.getTypesByName();
+			assertThat(reloaded).isNotSameAs(types).containsKey("ferret");
+		}
+		finally {
+			transaction.executeWithoutResult((status) -> this.entityManager.remove(
+					this.entityManager.find(PetType.class, this.petTypes.getTypesByName().get("ferret").getId())));
+		}
+		assertThat(this.petTypes.getTypesByName()).doesNotContainKey("ferret");
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link SearchKeyBackfill}
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class SearchKeyBackfillTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void shouldFillInMissingSearchKeys() {
+		this.jdbc.update("INSERT INTO owners (first_name, last_name, city, telephone) "
+				+ "VALUES ('Zoë', 'Müller', 'Mádison', '6085550000')");
+		SearchKeyBackfill backfill = new SearchKeyBackfill(this.jdbc, event -> {
+		});
+
+		assertThat(backfill.backfillOwners()).isEqualTo(1);
+		Map<String, Object> keys = this.jdbc.queryForMap(
+				"SELECT last_name_search, first_name_search, city_search " + "FROM owners WHERE last_name = 'Müller'");
+		assertThat(keys).containsEntry("LAST_NAME_SEARCH", "muller").containsEntry("FIRST_NAME_SEARCH", "zoe")
+				.containsEntry("CITY_SEARCH", "madison");
+		assertThat(backfill.backfillOwners()).isZero();
+	}
+
+	@Test
+	void shouldFillInMissingPetNameSearchKeys() {
+		this.jdbc.update("INSERT INTO pets (name, birth_date, type_id, owner_id) VALUES ('Chloé', '2020-01-01', 1, 1)");
+		SearchKeyBackfill backfill = new SearchKeyBackfill(this.jdbc, event -> {
+		});
+
+		assertThat(backfill.backfillPets()).isEqualTo(1);
+		assertThat(this.jdbc.queryForObject("SELECT name_search FROM pets WHERE name = 'Chloé'", String.class))
+				.isEqualTo("chloe");
+		assertThat(backfill.backfillPets()).isZero();
+	}
+
+}
@@ -16,14 +16,20 @@
 
 package org.springframework.samples.petclinic.owner;
 
+import java.util.ArrayList;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.samples.petclinic.visit.VisitRepository;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -51,6 +57,8 @@ class VisitControllerTests {
 	@BeforeEach
 	void init() {
 		given(this.pets.findById(TEST_PET_ID)).willReturn(new Pet());
+		given(this.visits.findByPetId(eq(TEST_PET_ID), any(Pageable.class)))
+				.willReturn(new SliceImpl<>(new ArrayList<>()));
 	}
 
 	@Test
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.owner;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+/**
+ * Test class for {@link VisitHistoryController}
+ */
+@WebMvcTest(VisitHistoryController.class)
+class VisitHistoryControllerTests {
+
+	private static final int TEST_OWNER_ID = 1;
+
+	private static final int TEST_PET_ID = 1;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private VisitRepository visits;
+
+	@MockBean
+	private PetRepository pets;
+
+	@BeforeEach
+	void setup() {
+		Pet pet = new Pet();
+		pet.setId(TEST_PET_ID);
+		pet.setName("Leo");
+		Owner owner = new Owner();
+		owner.setId(TEST_OWNER_ID);
+		owner.addPet(pet);
+		given(this.pets.findById(TEST_PET_ID)).willReturn(pet);
+	}
+
+	@Test
+	void shouldShowTheFirstPageWithALinkToTheNext() throws Exception {
+		given(this.visits.findByPetId(TEST_PET_ID, PageRequest.of(0, VisitHistoryController.PAGE_SIZE)))
+				.willReturn(new SliceImpl<>(Arrays.asList(visit(2, "neutered"), visit(1, "rabies shot")),
+						PageRequest.of(0, VisitHistoryController.PAGE_SIZE), true));
+
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID))
+				.andExpect(status().isOk()).andExpect(view().name("pets/visitHistory"))
+				.andExpect(model().attribute("visits", hasSize(2))).andExpect(model().attribute("nextPage", 1))
+				.andExpect(content().string(containsString("/owners/1/pets/1/visits?page=1")));
+	}
+
+	@Test
+	void shouldReturnOnlyTheRowsOfFollowingPages() throws Exception {
+		given(this.visits.findByPetId(TEST_PET_ID, PageRequest.of(1, VisitHistoryController.PAGE_SIZE)))
+				.willReturn(new SliceImpl<>(Collections.singletonList(visit(1, "rabies shot")),
+						PageRequest.of(1, VisitHistoryController.PAGE_SIZE), false));
+
+		this.mockMvc
+				.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID).param("page", "1")
+						.header("X-Requested-With", "XMLHttpRequest"))
+				.andExpect(status().isOk()).andExpect(view().name("pets/visitHistory :: visits"))
+				.andExpect(content().string(containsString("rabies shot")))
+				.andExpect(content().string(not(containsString("<html"))))
+				.andExpect(content().string(not(containsString("more-visits"))));
+	}
+
+	@Test
+	void shouldFilterByDates() throws Exception {
+		given(this.visits.findByPetIdAndDateBetween(TEST_PET_ID, LocalDate.of(2013, 1, 1), LocalDate.of(9999, 12, 31),
+				PageRequest.of(0, VisitHistoryController.PAGE_SIZE)))
+						.willReturn(new SliceImpl<>(Collections.singletonList(visit(2, "neutered"))));
+
+		this.mockMvc
+				.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, TEST_PET_ID).param("from",
+						"2013-01-01"))
+				.andExpect(status().isOk()).andExpect(model().attribute("visits", hasSize(1)))
+				.andExpect(model().attribute("from", LocalDate.of(2013, 1, 1)));
+	}
+
+	@Test
+	void shouldNotFindPetsOfOtherOwners() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", 2, TEST_PET_ID))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void shouldNotFindUnknownPets() throws Exception {
+		this.mockMvc.perform(get("/owners/{ownerId}/pets/{petId}/visits", TEST_OWNER_ID, 99).header("X-Requested-With",
+				"XMLHttpRequest")).andExpect(status().isNotFound());
+	}
+
+	private static Visit visit(int day, String description) {
+		Visit visit = new Visit();
+		visit.setPetId(TEST_PET_ID);
+		visit.setDate(LocalDate.of(2013, 1, day));
+		visit.setDescription(description);
+		return visit;
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitRepository;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link VisitReportController} and {@link VisitRollupsEndpoint}, on
+ * the rollups built from the sample data at startup.
+ */
+@SpringBootTest
+class VisitReportControllerTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private VisitRollups rollups;
+
+	@Autowired
+	private VisitRepository visits;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.context).build();
+		awaitUntil(() -> this.rollups.getLastRebuild() != null);
+	}
+
+	@Test
+	void shouldReportVisitsPerDayAndPetType() throws Exception {
+		this.mockMvc.perform(get("/api/reports/visits").param("from", "2012-12-31").param("to", "2013-01-04"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.total").value(4))
+				.andExpect(jsonPath("$.days.length()").value(5))
+				.andExpect(jsonPath("$.days[0].date").value("2012-12-31"))
+				.andExpect(jsonPath("$.days[0].visits").value(0)).andExpect(jsonPath("$.days[1].visits").value(1))
+				.andExpect(jsonPath("$.petTypes[0].name").value("cat"))
+				.andExpect(jsonPath("$.petTypes[0].visits").value(4));
+	}
+
+	@Test
+	void shouldCountSavedVisits() throws Exception {
+		Visit visit = new Visit();
+		visit.setPetId(2);
+		visit.setDate(LocalDate.of(2031, 1, 1));
+		visit.setDescription("checkup");
+		this.visits.save(visit);
+		try {
+			awaitUntil(() -> this.rollups.visitsOn(visit.getDate()) == 1);
+			this.mockMvc.perform(get("/api/reports/visits").param("from", "2031-01-01"))
+					.andExpect(jsonPath("$.to").value("2031-01-30")).andExpect(jsonPath("$.total").value(1))
+					.andExpect(jsonPath("$.petTypes[0].name").value("hamster"));
+		}
+		finally {
+			this.jdbc.update("DELETE FROM visits WHERE id = ?", visit.getId());
+			Instant last = this.rollups.getLastRebuild();
+			this.rollups.rebuild();
+			awaitUntil(() -> this.rollups.getLastRebuild() != last);
+		}
+	}
+
+	@Test
+	void shouldRejectInvalidRanges() throws Exception {
+		this.mockMvc.perform(get("/api/reports/visits").param("from", "2013-01-02").param("to", "2013-01-01"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/api/reports/visits").param("from", "2012-01-01").param("to", "2013-01-01"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void shouldRebuildThroughActuator() throws Exception {
+		Instant last = this.rollups.getLastRebuild();
+		this.mockMvc.perform(post("/actuator/visitrollups")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.lastRebuild", notNullValue()));
+		awaitUntil(() -> this.rollups.getLastRebuild() != last);
+		this.mockMvc.perform(get("/actuator/visitrollups")).andExpect(jsonPath("$.rows").value(4))
+				.andExpect(jsonPath("$.queued").value(0));
+	}
+
+	private static void awaitUntil(BooleanSupplier condition) {
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			while (!condition.getAsBoolean()) {
+				Thread.sleep(10);
+			}
+		});
+	}
+
+}
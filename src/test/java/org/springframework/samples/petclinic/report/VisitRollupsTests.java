@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.report;
+
+import java.sql.Date;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitSavedEvent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.fail;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Test class for {@link VisitRollups}, on the sample data. Rollups are updated on their
+ * own thread, so the tests run without a transaction and recount the rollups afterwards.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VisitRollupsTests {
+
+	private static final LocalDate DAY = LocalDate.of(2030, 1, 1);
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private VisitRollups rollups;
+
+	@BeforeEach
+	void setup() {
+		this.rollups = new VisitRollups(this.jdbc, this.transactionManager, 100);
+		this.rollups.start();
+		rebuild();
+	}
+
+	@AfterEach
+	void close() {
+		rebuild();
+		this.rollups.close();
+	}
+
+	@Test
+	void shouldRebuildFromVisits() {
+		assertThat(this.rollups.visitsPerDay(LocalDate.of(2013, 1, 1), LocalDate.of(2013, 1, 5))).containsExactly(
+				entry(LocalDate.of(2013, 1, 1), 1L), entry(LocalDate.of(2013, 1, 2), 1L),
+				entry(LocalDate.of(2013, 1, 3), 1L), entry(LocalDate.of(2013, 1, 4), 1L),
+				entry(LocalDate.of(2013, 1, 5), 0L));
+		assertThat(this.rollups.visitsPerPetType(LocalDate.of(2013, 1, 1), LocalDate.of(2013, 1, 31)))
+				.extracting(VisitReport.Count::getName, VisitReport.Count::getVisits).containsExactly(tuple("cat", 4L));
+	}
+
+	@Test
+	void shouldCountCreatedVisits() {
+		// ids past the visits the rebuild counted, whatever other tests left behind
+		int last = this.jdbc.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+		this.rollups.onVisitSaved(new VisitSavedEvent(visit(last + 1, 1), true));
+		this.rollups.onVisitSaved(new VisitSavedEvent(visit(last + 2, 13), true));
+		this.rollups.onVisitSaved(new VisitSavedEvent(visit(last + 3, 2), false));
+		this.rollups.onVisitSaved(new VisitSavedEvent(visit(last + 4, 2), true));
+
+		await(() -> this.rollups.visitsOn(DAY) == 3);
+		assertThat(this.rollups.visitsPerPetType(DAY, DAY))
+				.extracting(VisitReport.Count::getName, VisitReport.Count::getVisits)
+				.containsExactly(tuple("cat", 2L), tuple("hamster", 1L));
+	}
+
+	@Test
+	void shouldNotCountVisitsAlreadyRebuilt() {
+		this.jdbc.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (1, ?, 'checkup')",
+				Date.valueOf(DAY));
+		int id = this.jdbc.queryForObject("SELECT MAX(id) FROM visits", Integer.class);
+		try {
+			rebuild();
+			// the visit committed before the rebuild, its event arrives after it
+			this.rollups.onVisitSaved(new VisitSavedEvent(visit(id, 1), true));
+			// visits are counted in order, this one shows when the first was
+			Visit next = visit(id + 1, 1);
+			next.setDate(DAY.plusDays(1));
+			this.rollups.onVisitSaved(new VisitSavedEvent(next, true));
+
+			await(() -> this.rollups.visitsOn(next.getDate()) == 1);
+			assertThat(this.rollups.visitsOn(DAY)).isEqualTo(1);
+		}
+		finally {
+			this.jdbc.update("DELETE FROM visits WHERE id = ?", id);
+		}
+	}
+
+	private void rebuild() {
+		Instant last = this.rollups.getLastRebuild();
+		this.rollups.rebuild();
+		await(() -> this.rollups.getLastRebuild() != last);
+	}
+
+	private Visit visit(int id, int petId) {
+		Visit visit = new Visit();
+		visit.setId(id);
+		visit.setPetId(petId);
+		visit.setDate(DAY);
+		return visit;
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				fail("Visit rollups not updated in time");
+			}
+			try {
+				Thread.sleep(10);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted");
+			}
+		}
+	}
+
+}
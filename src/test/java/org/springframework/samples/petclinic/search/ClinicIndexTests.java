@@ -0,0 +1,129 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.lucene.document.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Test class for {@link ClinicIndex}
+ */
+class ClinicIndexTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void shouldMatchEveryWordIgnoringCaseAccentsAndPlurals() throws IOException {
+		try (ClinicIndex index = new ClinicIndex(this.directory)) {
+			index.update(owner(1, "Jürgen Müller", "Berlin"));
+			index.update(visit(2, 1, "Rabies shots and a dental cleaning"));
+			index.refresh();
+
+			assertThat(index.search("MULLER jurgen", null, 0, 10).getHits()).extracting(SearchHit::getTitle)
+					.containsExactly("Jürgen Müller");
+			assertThat(index.search("rabies shot", null, 0, 10).getHits()).extracting(SearchHit::getId)
+					.containsExactly(2);
+			assertThat(index.search("rabies berlin", null, 0, 10).getTotal()).isZero();
+			assertThat(index.search(" ,. ", null, 0, 10).getTotal()).isZero();
+		}
+	}
+
+	@Test
+	void shouldRankNamesAboveOtherFields() throws IOException {
+		try (ClinicIndex index = new ClinicIndex(this.directory)) {
+			index.update(owner(1, "Jean Coleman", "Madison"));
+			index.update(owner(2, "Madison Black", "Monona"));
+			index.refresh();
+
+			SearchResults results = index.search("madison", null, 0, 10);
+			assertThat(results.getHits()).extracting(SearchHit::getId).containsExactly(2, 1);
+			assertThat(results.getHits().get(0).getScore()).isGreaterThan(results.getHits().get(1).getScore());
+		}
+	}
+
+	@Test
+	void shouldFilterByTypeAndPage() throws IOException {
+		try (ClinicIndex index = new ClinicIndex(this.directory)) {
+			for (int id = 1; id <= 5; id++) {
+				index.update(owner(id, "Owner " + id, "Madison"));
+				index.update(visit(id, id, "checkup in Madison"));
+			}
+			index.refresh();
+
+			SearchResults first = index.search("madison", ClinicIndex.OWNER, 0, 2);
+			SearchResults last = index.search("madison", ClinicIndex.OWNER, 2, 2);
+			assertThat(first.getTotal()).isEqualTo(5);
+			assertThat(first.getHits()).hasSize(2).extracting(SearchHit::getType).containsOnly(ClinicIndex.OWNER);
+			assertThat(first.isHasNext()).isTrue();
+			assertThat(last.getHits()).hasSize(1);
+			assertThat(last.isHasNext()).isFalse();
+			assertThatIllegalArgumentException()
+					.isThrownBy(() -> index.search("madison", null, ClinicIndex.MAX_RESULTS / 10, 10));
+		}
+	}
+
+	@Test
+	void shouldReplaceAndDeleteDocuments() throws IOException {
+		try (ClinicIndex index = new ClinicIndex(this.directory)) {
+			index.update(owner(1, "George Franklin", "Madison"));
+			index.update(owner(1, "George Franklin", "Verona"));
+			index.update(owner(2, "Betty Davis", "Verona"));
+			index.delete(ClinicIndex.OWNER, 2);
+			index.refresh();
+
+			assertThat(index.size()).isEqualTo(1);
+			assertThat(index.search("madison", null, 0, 10).getTotal()).isZero();
+			assertThat(index.search("verona", null, 0, 10).getHits()).extracting(SearchHit::getSummary)
+					.containsExactly("Verona");
+		}
+	}
+
+	@Test
+	void shouldKeepCommittedDocumentsAcrossRestarts() throws IOException {
+		try (ClinicIndex index = new ClinicIndex(this.directory)) {
+			index.update(owner(1, "George Franklin", "Madison"));
+			index.commit();
+		}
+		try (ClinicIndex index = new ClinicIndex(this.directory)) {
+			assertThat(index.search("franklin", null, 0, 10).getHits()).extracting(SearchHit::getPath)
+					.containsExactly("/owners/1");
+		}
+	}
+
+	private static Document owner(int id, String name, String city) {
+		Map<String, String> fields = new HashMap<>();
+		fields.put("name", name);
+		fields.put("city", city);
+		return ClinicIndex.document(ClinicIndex.OWNER, id, id, null, name, city, fields);
+	}
+
+	private static Document visit(int id, int ownerId, String description) {
+		Map<String, String> fields = new HashMap<>();
+		fields.put("description", description);
+		return ClinicIndex.document(ClinicIndex.VISIT, id, ownerId, 1, "visit " + id, description, fields);
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerSavedEvent;
+import org.springframework.samples.petclinic.visit.Visit;
+import org.springframework.samples.petclinic.visit.VisitSavedEvent;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for {@link ClinicIndexer}. Changes are committed, as the indexer reads them
+ * on its own thread, and reverted after each test.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ClinicIndexerTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	private ClinicIndex index;
+
+	private ClinicIndexer indexer;
+
+	@BeforeEach
+	void setup() {
+		this.index = ClinicIndex.temporary();
+		this.indexer = new ClinicIndexer(this.index, new ClinicDocuments(this.jdbc), 100, Duration.ZERO);
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		this.indexer.close();
+		this.index.close();
+	}
+
+	@Test
+	void shouldRebuildFromTheDatabase() {
+		rebuild();
+
+		assertThat(this.index.search("rabies", ClinicIndex.VISIT, 0, 10).getHits()).extracting(SearchHit::getPetId)
+				.containsExactlyInAnyOrder(7, 8);
+		SearchResults george = this.index.search("george", null, 0, 10);
+		// names first, then the pets of George Franklin and the owner of George
+		assertThat(george.getHits()).extracting(SearchHit::getTitle).hasSize(4);
+		assertThat(george.getHits().subList(0, 2)).extracting(SearchHit::getTitle).containsExactlyInAnyOrder("George",
+				"George Franklin");
+		assertThat(george.getHits().subList(2, 4)).extracting(SearchHit::getTitle).containsExactlyInAnyOrder("Leo",
+				"Peter McTavish");
+		assertThat(this.index.search("franklin leo", null, 0, 10).getHits()).extracting(SearchHit::getType)
+				.containsExactlyInAnyOrder(ClinicIndex.OWNER, ClinicIndex.PET);
+	}
+
+	@Test
+	void shouldIndexAndRemoveSavedVisits() {
+		rebuild();
+		this.jdbc.update(
+				"INSERT INTO visits (pet_id, visit_date, description) VALUES (1, '2021-01-01', 'raccoon bite')");
+		Visit visit = new Visit();
+		visit.setId(
+				this.jdbc.queryForObject("SELECT id FROM visits WHERE description = 'raccoon bite'", Integer.class));
+		try {
+			this.indexer.onVisitSaved(new VisitSavedEvent(visit));
+			await(() -> this.index.search("raccoon", null, 0, 10).getTotal() == 1);
+			SearchHit hit = this.index.search("raccoon", null, 0, 10).getHits().get(0);
+			assertThat(hit.getTitle()).isEqualTo("2021-01-01, Leo");
+			assertThat(hit.getOwnerId()).isEqualTo(1);
+		}
+		finally {
+			this.jdbc.update("DELETE FROM visits WHERE id = ?", visit.getId());
+		}
+
+		this.indexer.onVisitSaved(new VisitSavedEvent(visit));
+		await(() -> this.index.search("raccoon", null, 0, 10).getTotal() == 0);
+	}
+
+	@Test
+	void shouldRefreshThePetsOfASavedOwner() {
+		rebuild();
+		Owner owner = new Owner();
+		owner.setId(1);
+		this.jdbc.update("UPDATE owners SET last_name = 'Frankenstein' WHERE id = 1");
+		try {
+			this.indexer.onOwnerSaved(new OwnerSavedEvent(owner));
+			await(() -> this.index.search("frankenstein", null, 0, 10).getTotal() == 2);
+			assertThat(this.index.search("frankenstein", ClinicIndex.PET, 0, 10).getHits())
+					.extracting(SearchHit::getSummary).containsExactly("cat of George Frankenstein");
+		}
+		finally {
+			this.jdbc.update("UPDATE owners SET last_name = 'Franklin' WHERE id = 1");
+		}
+	}
+
+	@Test
+	void shouldRebuildWhenTheQueueOverflows() {
+		this.indexer.close();
+		this.indexer = new ClinicIndexer(this.index, new ClinicDocuments(this.jdbc), 1, Duration.ZERO);
+		for (int id = 1; id <= 3; id++) {
+			Visit visit = new Visit();
+			visit.setId(id);
+			this.indexer.onVisitSaved(new VisitSavedEvent(visit));
+		}
+
+		this.indexer.start();
+		await(() -> this.indexer.getLastRebuild() != null);
+		assertThat(this.index.search("lucky", ClinicIndex.PET, 0, 10).getTotal()).isEqualTo(2);
+	}
+
+	private void rebuild() {
+		this.indexer.start();
+		this.indexer.rebuild();
+		await(() -> this.indexer.getLastRebuild() != null);
+	}
+
+	private static void await(BooleanSupplier condition) {
+		long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() > deadline) {
+				fail("Search index not updated in time");
+			}
+			try {
+				Thread.sleep(10);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				fail("Interrupted");
+			}
+		}
+	}
+
+}
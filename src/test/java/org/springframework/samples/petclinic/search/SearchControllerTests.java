@@ -0,0 +1,100 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.search;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link SearchController} and {@link SearchIndexEndpoint}, on the
+ * index built from the sample data at startup.
+ */
+@SpringBootTest
+class SearchControllerTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private ClinicIndexer indexer;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setup() {
+		this.mockMvc = MockMvcBuilders.webAppContextSetup(this.context).build();
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+			while (this.indexer.getLastRebuild() == null) {
+				Thread.sleep(10);
+			}
+		});
+	}
+
+	@Test
+	void shouldFindBestMatchesFirst() throws Exception {
+		this.mockMvc.perform(get("/api/search").param("q", "leo")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.total").value(2)).andExpect(jsonPath("$.hits[0].type").value("pet"))
+				.andExpect(jsonPath("$.hits[0].title").value("Leo"))
+				.andExpect(jsonPath("$.hits[0].summary").value("cat of George Franklin"))
+				.andExpect(jsonPath("$.hits[0].path").value("/owners/1"))
+				.andExpect(jsonPath("$.hits[1].title").value("George Franklin"));
+	}
+
+	@Test
+	void shouldFilterByTypeAndPage() throws Exception {
+		this.mockMvc.perform(get("/api/search").param("q", "Madison").param("type", "owner").param("size", "3"))
+				.andExpect(status().isOk()).andExpect(jsonPath("$.total").value(4))
+				.andExpect(jsonPath("$.hits.length()").value(3)).andExpect(jsonPath("$.hasNext").value(true));
+		this.mockMvc
+				.perform(get("/api/search").param("q", "Madison").param("type", "owner").param("size", "3")
+						.param("page", "1"))
+				.andExpect(jsonPath("$.hits.length()").value(1)).andExpect(jsonPath("$.hasNext").value(false));
+	}
+
+	@Test
+	void shouldRejectInvalidParameters() throws Exception {
+		this.mockMvc.perform(get("/api/search").param("q", "leo").param("type", "vet"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/api/search").param("q", "leo").param("size", "1000"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/api/search").param("q", "leo").param("page", "5000"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void shouldRebuildOnRequest() throws Exception {
+		this.mockMvc.perform(get("/actuator/searchindex")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.documents").value(greaterThan(0)))
+				.andExpect(jsonPath("$.lastRebuild").value(notNullValue()));
+		this.mockMvc.perform(post("/actuator/searchindex")).andExpect(status().isOk());
+	}
+
+}
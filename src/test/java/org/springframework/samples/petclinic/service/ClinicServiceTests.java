@@ -19,7 +19,16 @@ package org.springframework.samples.petclinic.service;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,12 +37,15 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.samples.petclinic.owner.Owner;
 import org.springframework.samples.petclinic.owner.OwnerRepository;
 import org.springframework.samples.petclinic.owner.Pet;
 import org.springframework.samples.petclinic.owner.PetRepository;
 import org.springframework.samples.petclinic.owner.PetType;
+import org.springframework.samples.petclinic.vet.Specialty;
 import org.springframework.samples.petclinic.vet.Vet;
 import org.springframework.samples.petclinic.vet.VetRepository;
 import org.springframework.samples.petclinic.visit.Visit;
@@ -86,9 +98,13 @@ class ClinicServiceTests {
 	@Autowired
 	protected VetRepository vets;
 
+	@Autowired
+	protected EntityManager entityManager;
+
 	Pageable pageable;
 
 	@Test
+	@SuppressWarnings("deprecation")
 	void shouldFindOwnersByLastName() {
 		Page<Owner> owners = this.owners.findByLastName("Davis", pageable);
 		assertThat(owners).hasSize(2);
@@ -97,6 +113,55 @@ class ClinicServiceTests {
 		assertThat(owners).isEmpty();
 	}
 
+	@Test
+	@Transactional
+	void shouldFindOwnersIgnoringCaseAndAccents() {
+		Owner owner = new Owner();
+		owner.setFirstName("Jürgen");
+		owner.setLastName("Müller");
+		owner.setAddress("1 Hauptstraße");
+		owner.setCity("Zürich");
+		owner.setTelephone("4444444444");
+		this.owners.save(owner);
+		this.entityManager.flush();
+
+		assertThat(owner.getLastNameSearch()).isEqualTo("muller");
+		assertThat(this.owners.findIdsByLastName("muller", PageRequest.of(0, 5))).containsExactly(owner.getId());
+		assertThat(this.owners.findIdsByLastName("MÜL", PageRequest.of(0, 5))).containsExactly(owner.getId());
+		assertThat(this.owners.countByLastName("Mull")).isEqualTo(1);
+		assertThat(this.owners.findIdsByLastName("davis", PageRequest.of(0, 5))).containsExactly(2, 4);
+	}
+
+	@Test
+	@Transactional
+	void shouldUpdateSearchKeyWithLastName() {
+		Owner owner = this.owners.findById(1);
+		owner.setLastName("Frånklin");
+		this.owners.save(owner);
+		this.entityManager.flush();
+
+		assertThat(this.owners.findIdsByLastName("FRANK", PageRequest.of(0, 5))).containsExactly(1);
+	}
+
+	@Test
+	void shouldSeekOwnersByLastName() {
+		Pageable window = PageRequest.of(0, 1);
+		List<Integer> first = this.owners.findIdsByLastName("Davis", window);
+		assertThat(first).containsExactly(2);
+
+		List<Integer> next = this.owners.findIdsByLastNameAfter("Davis", "davis", 2, window);
+		assertThat(next).containsExactly(4);
+		assertThat(this.owners.findIdsByLastNameAfter("Davis", "davis", 4, window)).isEmpty();
+
+		List<Integer> previous = this.owners.findIdsByLastNameBefore("Davis", "davis", 4, window);
+		assertThat(previous).containsExactly(2);
+		assertThat(this.owners.findLastIdsByLastName("Davis", window)).containsExactly(4);
+
+		List<Owner> owners = this.owners.findByIdIn(Arrays.asList(4, 2));
+		assertThat(owners).extracting(Owner::getId).containsExactly(2, 4);
+		assertThat(owners.get(0).getPets()).isNotEmpty();
+	}
+
 	@Test
 	void shouldFindSingleOwnerWithPet() {
 		Owner owner = this.owners.findById(1);
@@ -108,6 +173,7 @@ class ClinicServiceTests {
 
 	@Test
 	@Transactional
+	@SuppressWarnings("deprecation")
 	void shouldInsertOwner() {
 		Page<Owner> owners = this.owners.findByLastName("Schultz", pageable);
 		int found = (int) owners.getTotalElements();
@@ -206,6 +272,24 @@ class ClinicServiceTests {
 		assertThat(vet.getSpecialties().get(1).getName()).isEqualTo("surgery");
 	}
 
+	@Test
+	@Transactional
+	void shouldInsertVetWithSpecialties() {
+		int found = this.vets.findAll().size();
+		Specialty surgery = EntityUtils.getById(this.vets.findSpecialties(), Specialty.class, 2);
+
+		Vet vet = new Vet();
+		vet.setFirstName("Jane");
+		vet.setLastName("Doe");
+		vet.addSpecialty(surgery);
+		this.vets.save(vet);
+		assertThat(vet.getId()).isNotNull();
+
+		assertThat(this.vets.findAll()).hasSize(found + 1);
+		assertThat(this.vets.findById(vet.getId()).getSpecialties()).extracting(Specialty::getName)
+				.containsExactly("surgery");
+	}
+
 	@Test
 	@Transactional
 	void shouldAddNewVisitForPet() {
@@ -223,12 +307,135 @@ class ClinicServiceTests {
 	}
 
 	@Test
-	void shouldFindVisitsByPetId() throws Exception {
-		Collection<Visit> visits = this.visits.findByPetId(7);
-		assertThat(visits).hasSize(2);
-		Visit[] visitArr = visits.toArray(new Visit[visits.size()]);
-		assertThat(visitArr[0].getDate()).isNotNull();
-		assertThat(visitArr[0].getPetId()).isEqualTo(7);
+	void shouldFindVisitsByPetIdMostRecentFirst() throws Exception {
+		Slice<Visit> visits = this.visits.findByPetId(7, PageRequest.of(0, 5));
+		assertThat(visits.getContent()).extracting(Visit::getDate).containsExactly(LocalDate.of(2013, 1, 4),
+				LocalDate.of(2013, 1, 1));
+		assertThat(visits.getContent()).extracting(Visit::getPetId).containsOnly(7);
+		assertThat(visits.hasNext()).isFalse();
+
+		visits = this.visits.findByPetId(7, PageRequest.of(0, 1));
+		assertThat(visits.getContent()).extracting(Visit::getDescription).containsExactly("spayed");
+		assertThat(visits.hasNext()).isTrue();
+		assertThat(this.visits.findByPetId(7, visits.nextPageable()).getContent()).extracting(Visit::getDescription)
+				.containsExactly("rabies shot");
+	}
+
+	@Test
+	void shouldFindVisitsByPetIdBetweenDates() throws Exception {
+		Slice<Visit> visits = this.visits.findByPetIdAndDateBetween(8, LocalDate.of(2013, 1, 1),
+				LocalDate.of(2013, 1, 2), PageRequest.of(0, 5));
+		assertThat(visits.getContent()).extracting(Visit::getDescription).containsExactly("rabies shot");
+		assertThat(this.visits
+				.findByPetIdAndDateBetween(8, LocalDate.of(2013, 1, 2), LocalDate.of(2013, 1, 3), PageRequest.of(0, 5))
+				.getContent()).extracting(Visit::getDate).containsExactly(LocalDate.of(2013, 1, 3),
+						LocalDate.of(2013, 1, 2));
+	}
+
+	@Test
+	@Transactional
+	void shouldFindTheLatestVisitsOfSeveralPetsInOneQuery() throws Exception {
+		for (int day = 1; day <= 3; day++) {
+			Visit visit = new Visit();
+			visit.setPetId(8);
+			visit.setDate(LocalDate.of(2014, 1, day));
+			visit.setDescription("checkup " + day);
+			this.visits.save(visit);
+		}
+		this.entityManager.flush();
+		Statistics statistics = statistics();
+
+		List<Visit> visits = this.visits.findLatestByPetIdIn(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13),
+				2);
+
+		assertThat(visits).extracting(Visit::getDescription).containsExactly("spayed", "rabies shot", "checkup 3",
+				"checkup 2");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		// ordered by pet whatever the order of the ids
+		assertThat(this.visits.findLatestByPetIdIn(Arrays.asList(13, 12, 11, 10, 9, 8, 7, 6, 5, 4, 3, 2, 1), 2))
+				.isEqualTo(visits);
+		assertThat(this.visits.findLatestByPetIdIn(Collections.emptyList(), 2)).isEmpty();
+	}
+
+	@Test
+	void shouldListOwnersWithoutTheirPets() {
+		Statistics statistics = statistics();
+		Page<Owner> owners = this.owners.findAll(PageRequest.of(0, 5));
+
+		assertThat(owners).hasSize(5).allMatch((owner) -> !isLoaded(owner, "pets"));
+		// the page and its count
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldLoadPetNamesOfListedOwnersInOneQuery() {
+		// pet types are served from the second-level cache, as in the running application
+		this.pets.findPetTypes();
+		Statistics statistics = statistics();
+		List<Owner> owners = this.owners.findByIdIn(Arrays.asList(1, 2, 3, 4, 5, 6));
+
+		assertThat(owners).hasSize(6).allMatch((owner) -> isLoaded(owner, "pets"));
+		assertThat(owners).flatExtracting(Owner::getPets).extracting(Pet::getName).contains("Leo", "Samantha", "Max");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldLoadOwnerDetailsInTwoQueries() {
+		this.entityManager.getEntityManagerFactory().getCache().evictAll();
+		Statistics statistics = statistics();
+		Owner owner = this.owners.findById(6);
+		List<Visit> visits = this.visits
+				.findLatestByPetIdIn(owner.getPets().stream().map(Pet::getId).collect(Collectors.toList()), 6);
+
+		assertThat(owner.getPets()).extracting(Pet::getName).containsExactly("Max", "Samantha");
+		assertThat(owner.getPets()).extracting((pet) -> pet.getType().getName()).containsOnly("cat");
+		assertThat(visits).hasSize(4);
+		// the owner with pets and types, then the visits of all pets
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldLoadOwnerForEditWithoutPets() {
+		Statistics statistics = statistics();
+		Owner owner = this.owners.findByIdWithoutPets(6);
+
+		assertThat(owner.getLastName()).isEqualTo("Coleman");
+		assertThat(isLoaded(owner, "pets")).isFalse();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldLoadSpecialtiesOfVetsInOneBatch() {
+		this.entityManager.getEntityManagerFactory().getCache().evictAll();
+		Statistics statistics = statistics();
+		Collection<Vet> vets = this.vets.findAll();
+
+		assertThat(vets).allMatch((vet) -> isLoaded(vet, "specialties"));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+		this.entityManager.getEntityManagerFactory().getCache().evictAll();
+		this.entityManager.clear();
+		statistics.clear();
+		Slice<Vet> page = this.vets.findSlice(PageRequest.of(0, 5));
+
+		assertThat(page).hasSize(5).allMatch((vet) -> isLoaded(vet, "specialties"));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+	}
+
+	/**
+	 * Start counting statements with an empty persistence context.
+	 */
+	private Statistics statistics() {
+		this.entityManager.clear();
+		Statistics statistics = this.entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		statistics.setStatisticsEnabled(true);
+		statistics.clear();
+		return statistics;
+	}
+
+	private boolean isLoaded(Object entity, String attribute) {
+		return this.entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(entity, attribute);
 	}
 
 }
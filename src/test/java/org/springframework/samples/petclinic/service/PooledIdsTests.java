@@ -0,0 +1,120 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.service;
+
+import java.time.LocalDate;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.owner.Owner;
+import org.springframework.samples.petclinic.owner.OwnerRepository;
+import org.springframework.samples.petclinic.owner.Pet;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.system.IdReservations;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test of the <code>pooled-ids</code> profile: ids from a sequence, and
+ * batched inserts.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+@ActiveProfiles("pooled-ids")
+class PooledIdsTests {
+
+	@Autowired
+	private OwnerRepository owners;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void shouldInsertOwnerWithManyPetsInOneBatch() {
+		Statistics statistics = this.entityManager.getEntityManagerFactory().unwrap(SessionFactory.class)
+				.getStatistics();
+		Owner owner = newOwner();
+		for (int i = 0; i < 20; i++) {
+			Pet pet = new Pet();
+			pet.setName("Pet " + i);
+			pet.setBirthDate(LocalDate.of(2020, 1, 1));
+			pet.setType(this.pets.findPetTypes().get(0));
+			owner.addPet(pet);
+		}
+
+		statistics.clear();
+		this.owners.save(owner);
+		this.entityManager.flush();
+
+		// a block of ids for owners and one for pets, one INSERT for the owner and one
+		// batch for the 20 pets
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+		assertThat(owner.getId()).isGreaterThanOrEqualTo(100);
+		assertThat(owner.getPets()).extracting(Pet::getId).doesNotContainNull().doesNotHaveDuplicates();
+		assertThat(
+				this.jdbc.queryForObject("SELECT COUNT(*) FROM pets WHERE owner_id = ?", Integer.class, owner.getId()))
+						.isEqualTo(20);
+	}
+
+	@Test
+	void shouldReserveIdsAfterTheBlockHeldByHibernate() {
+		Owner first = newOwner();
+		this.owners.save(first);
+		this.entityManager.flush();
+
+		int reserved = IdReservations.reserve(this.jdbc, "h2", "owners", 10);
+		assertThat(reserved).isGreaterThanOrEqualTo(first.getId() + 50);
+
+		Owner second = newOwner();
+		this.owners.save(second);
+		this.entityManager.flush();
+		assertThat(second.getId()).isEqualTo(first.getId() + 1);
+		this.entityManager.clear();
+		Owner third = newOwner();
+		for (int i = 0; i < 60; i++) {
+			third = newOwner();
+			this.owners.save(third);
+		}
+		this.entityManager.flush();
+		assertThat(third.getId()).isGreaterThanOrEqualTo(reserved + 10);
+	}
+
+	private Owner newOwner() {
+		Owner owner = new Owner();
+		owner.setFirstName("Pooled");
+		owner.setLastName("Ids");
+		owner.setAddress("1 Sequence St.");
+		owner.setCity("Madison");
+		owner.setTelephone("0123");
+		return owner;
+	}
+
+}
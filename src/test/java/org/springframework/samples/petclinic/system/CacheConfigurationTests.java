@@ -0,0 +1,115 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.owner.PetRepository;
+import org.springframework.samples.petclinic.vet.Vet;
+import org.springframework.samples.petclinic.vet.VetRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for {@link CacheConfiguration}
+ */
+@SpringBootTest
+class CacheConfigurationTests {
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PetRepository pets;
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Test
+	void shouldApplyCacheSpecsFromProperties() {
+		CacheRuntimeConfiguration<Object, Object> vetPages = runtimeConfiguration("vetPages");
+		assertThat(vetPages.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+		assertThat(vetPages.getExpiryPolicy()).isInstanceOf(TimeToLiveAndIdleExpiry.class);
+		assertThat(vetPages.getExpiryPolicy().getExpiryForCreation("key", "value")).isEqualTo(Duration.ofMinutes(10));
+
+		CacheRuntimeConfiguration<Object, Object> counts = runtimeConfiguration(PaginationCounter.CACHE_NAME);
+		assertThat(counts.getExpiryPolicy().getExpiryForCreation("key", "value")).isEqualTo(Duration.ofSeconds(60));
+	}
+
+	@Test
+	void shouldKeepPagedAndUnpagedVetsApart() {
+		assertThat(this.cacheManager.getCacheNames()).contains("vets", "vetPages");
+	}
+
+	@Test
+	void shouldServePetTypesFromQueryCache() {
+		this.pets.findPetTypes();
+		Statistics statistics = statistics();
+		statistics.clear();
+		assertThat(this.pets.findPetTypes()).isNotEmpty();
+		assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		assertThat(queryCacheRequests("hit")).isEqualTo(1);
+	}
+
+	@Test
+	void shouldServeVetsFromSecondLevelCache() {
+		this.vets.findById(1);
+		assertThat(this.entityManagerFactory.getCache().contains(Vet.class, 1)).isTrue();
+		Statistics statistics = statistics();
+		statistics.clear();
+		assertThat(this.vets.findById(1).getNrOfSpecialties()).isZero();
+		assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	private Statistics statistics() {
+		return this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	private double queryCacheRequests(String result) {
+		return this.registry.get("hibernate.cache.query.requests").tag("result", result).functionCounter().count();
+	}
+
+	@SuppressWarnings("unchecked")
+	private CacheRuntimeConfiguration<Object, Object> runtimeConfiguration(String name) {
+		Cache<Object, Object> cache = this.cacheManager.getCache(name);
+		Eh107Configuration<Object, Object> configuration = cache.getConfiguration(Eh107Configuration.class);
+		return configuration.unwrap(CacheRuntimeConfiguration.class);
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link DataGenerator}
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = Replace.NONE)
+class DataGeneratorTests {
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void shouldGenerateOwnersPetsAndVisits() {
+		int owners = count("owners");
+		int pets = count("pets");
+		int visits = count("visits");
+
+		DataGenerator.Generated generated = new DataGenerator(this.jdbc, "h2", 42).generate(1000, 2, 3);
+
+		assertThat(count("owners")).isEqualTo(owners + 1000);
+		assertThat(count("pets")).isEqualTo(pets + 2000);
+		assertThat(count("visits")).isEqualTo(visits + 6000);
+		assertThat(maxId("owners")).isEqualTo(generated.getFirstOwnerId() + 999);
+		assertThat(maxId("pets")).isEqualTo(generated.getFirstPetId() + 1999);
+		assertThat(maxId("visits")).isEqualTo(generated.getFirstVisitId() + 5999);
+		assertThat(this.jdbc.queryForObject("SELECT COUNT(*) FROM pets WHERE owner_id = ?", Integer.class,
+				generated.getFirstOwnerId())).isEqualTo(2);
+	}
+
+	@Test
+	void shouldFavourCommonLastNames() {
+		DataGenerator.Generated generated = new DataGenerator(this.jdbc, "h2", 42).generate(1000, 0, 0);
+
+		List<String> byFrequency = this.jdbc.queryForList(
+				"SELECT last_name FROM owners WHERE id >= ? " + "GROUP BY last_name ORDER BY COUNT(*) DESC, last_name",
+				String.class, generated.getFirstOwnerId());
+		assertThat(byFrequency.get(0)).isEqualTo(DataGenerator.LAST_NAMES.get(0));
+		assertThat(this.jdbc.queryForObject("SELECT COUNT(*) FROM owners WHERE id >= ? AND last_name_search = ?",
+				Integer.class, generated.getFirstOwnerId(), "smith")).isPositive();
+	}
+
+	@Test
+	void shouldContinueIdentityAfterGeneratedIds() {
+		DataGenerator.Generated generated = new DataGenerator(this.jdbc, "h2", 42).generate(10, 1, 1);
+
+		this.jdbc.update("INSERT INTO owners (first_name, last_name) VALUES ('New', 'Owner')");
+		assertThat(this.jdbc.queryForObject("SELECT MAX(id) FROM owners", Integer.class))
+				.isEqualTo(generated.getFirstOwnerId() + 10);
+	}
+
+	private int maxId(String table) {
+		return this.jdbc.queryForObject("SELECT MAX(id) FROM " + table, Integer.class);
+	}
+
+	private int count(String table) {
+		return this.jdbc.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+	}
+
+}
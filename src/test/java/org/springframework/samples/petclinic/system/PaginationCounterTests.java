@@ -0,0 +1,66 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for {@link PaginationCounter}
+ */
+class PaginationCounterTests {
+
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(PaginationCounter.CACHE_NAME);
+
+	private final AtomicInteger queries = new AtomicInteger();
+
+	@Test
+	void exactModeCountsEveryTime() {
+		PaginationCounter counter = new PaginationCounter(CountMode.EXACT, this.cacheManager);
+		assertThat(counter.count("owners:", this::countQuery)).isEqualTo(42L);
+		assertThat(counter.count("owners:", this::countQuery)).isEqualTo(42L);
+		assertThat(this.queries).hasValue(2);
+		assertThat(counter.isApproximate()).isFalse();
+	}
+
+	@Test
+	void cachedModeCountsOncePerKey() {
+		PaginationCounter counter = new PaginationCounter(CountMode.CACHED, this.cacheManager);
+		assertThat(counter.count("owners:", this::countQuery)).isEqualTo(42L);
+		assertThat(counter.count("owners:", this::countQuery)).isEqualTo(42L);
+		assertThat(counter.count("owners:S", this::countQuery)).isEqualTo(42L);
+		assertThat(this.queries).hasValue(2);
+		assertThat(counter.isApproximate()).isTrue();
+	}
+
+	@Test
+	void noneModeNeverCounts() {
+		PaginationCounter counter = new PaginationCounter(CountMode.NONE, this.cacheManager);
+		assertThat(counter.count("owners:", this::countQuery)).isNull();
+		assertThat(this.queries).hasValue(0);
+	}
+
+	private long countQuery() {
+		this.queries.incrementAndGet();
+		return 42L;
+	}
+
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PinnedThreadMonitor}.
+ */
+class PinnedThreadMonitorTests {
+
+	@Test
+	@EnabledForJreRange(min = JRE.JAVA_14)
+	void startsAndStopsEventStream() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		PinnedThreadMonitor monitor = new PinnedThreadMonitor(registry);
+		monitor.afterPropertiesSet();
+		monitor.destroy();
+		assertThat(registry.get("petclinic.threads.pinned").counter().count()).isZero();
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration test for {@link RequestStatisticsConfiguration}
+ */
+@SpringBootTest
+class RequestStatisticsTests {
+
+	@Autowired
+	private WebApplicationContext context;
+
+	@Autowired
+	private MeterRegistry registry;
+
+	@Autowired
+	private JdbcTemplate jdbc;
+
+	@Test
+	void shouldCountStatementsAndRowsOfTheCurrentRequest() {
+		RequestStatistics statistics = RequestStatistics.start();
+		try {
+			int owners = this.jdbc.queryForList("SELECT id FROM owners", Integer.class).size();
+			assertThat(statistics.getStatements()).isEqualTo(1);
+			assertThat(statistics.getRows()).isEqualTo(owners);
+			assertThat(statistics.getJdbcNanos()).isPositive();
+		}
+		finally {
+			RequestStatistics.stop();
+		}
+		this.jdbc.queryForList("SELECT id FROM owners", Integer.class);
+		assertThat(statistics.getStatements()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldPublishStatisticsPerHandler() throws Exception {
+		MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(this.context).build();
+		mockMvc.perform(get("/owners").param("lastName", "Davis")).andExpect(status().isOk());
+
+		DistributionSummary statements = this.registry.get("petclinic.request.sql.statements")
+				.tag("handler", "OwnerController.processFindForm").summary();
+		assertThat(statements.count()).isEqualTo(1);
+		assertThat(statements.totalAmount()).isPositive();
+		assertThat(this.registry.get("petclinic.request.sql.rows").tag("handler", "OwnerController.processFindForm")
+				.summary().totalAmount()).isPositive();
+		assertThat(this.registry.get("petclinic.request.entity.loads").tag("handler", "OwnerController.processFindForm")
+				.summary().totalAmount()).isPositive();
+		assertThat(this.registry.get("petclinic.request.jdbc").tag("handler", "OwnerController.processFindForm").timer()
+				.count()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldKeepConnectionPoolMetrics() {
+		assertThat(this.registry.find("hikaricp.connections.max").gauge()).isNotNull();
+	}
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.ehcache.Cache;
+import org.ehcache.CacheManager;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.CacheManagerBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TimeToLiveAndIdleExpiry}.
+ */
+class TimeToLiveAndIdleExpiryTests {
+
+	private final AtomicLong now = new AtomicLong(1000000);
+
+	private final TimeToLiveAndIdleExpiry expiry = new TimeToLiveAndIdleExpiry(Duration.ofHours(1),
+			Duration.ofMinutes(10), this.now::get);
+
+	@Test
+	void readsNeverExtendAnEntryPastItsTimeToLive() {
+		assertThat(this.expiry.getExpiryForCreation("key", "value")).isEqualTo(Duration.ofMinutes(10));
+		advance(Duration.ofMinutes(1));
+		assertThat(this.expiry.getExpiryForAccess("key", () -> "value")).isEqualTo(Duration.ofMinutes(10));
+		advance(Duration.ofMinutes(52));
+		assertThat(this.expiry.getExpiryForAccess("key", () -> "value")).isEqualTo(Duration.ofMinutes(7));
+		advance(Duration.ofMinutes(8));
+		assertThat(this.expiry.getExpiryForAccess("key", () -> "value")).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	void updatesRestartTheTimeToLive() {
+		this.expiry.getExpiryForCreation("key", "value");
+		advance(Duration.ofMinutes(55));
+		assertThat(this.expiry.getExpiryForUpdate("key", () -> "value", "new")).isEqualTo(Duration.ofMinutes(10));
+		advance(Duration.ofMinutes(9));
+		assertThat(this.expiry.getExpiryForAccess("key", () -> "new")).isEqualTo(Duration.ofMinutes(10));
+	}
+
+	@Test
+	void forgetsEntriesOlderThanTheTimeToLive() {
+		this.expiry.getExpiryForCreation("old", "value");
+		advance(Duration.ofHours(2));
+		for (int i = 1; i < TimeToLiveAndIdleExpiry.PRUNE_INTERVAL; i++) {
+			this.expiry.getExpiryForCreation(i, "value");
+		}
+		assertThat(this.expiry.getExpiryForAccess("old", () -> "value")).isEqualTo(Duration.ZERO);
+		assertThat(this.expiry.getExpiryForAccess(1, () -> "value")).isEqualTo(Duration.ofMinutes(10));
+	}
+
+	@Test
+	void entryReadMoreOftenThanItsTimeToIdleExpiresAfterItsTimeToLive() throws InterruptedException {
+		try (CacheManager cacheManager = CacheManagerBuilder.newCacheManagerBuilder().build(true)) {
+			Cache<Object, Object> cache = cacheManager.createCache("test",
+					CacheConfigurationBuilder
+							.newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(10))
+							.withExpiry(new TimeToLiveAndIdleExpiry(Duration.ofMillis(500), Duration.ofMillis(300))));
+			cache.put("key", "value");
+			long start = System.nanoTime();
+			Object value = "value";
+			while (value != null && System.nanoTime() - start < Duration.ofSeconds(2).toNanos()) {
+				Thread.sleep(50);
+				value = cache.get("key");
+			}
+			assertThat(value).isNull();
+			assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(500));
+		}
+	}
+
+	private void advance(Duration duration) {
+		this.now.addAndGet(duration.toMillis());
+	}
+
+}
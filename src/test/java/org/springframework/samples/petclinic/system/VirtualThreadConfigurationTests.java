@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.system;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link VirtualThreadConfiguration}.
+ */
+class VirtualThreadConfigurationTests {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+			.withUserConfiguration(VirtualThreadConfiguration.class);
+
+	@Test
+	void platformThreadsByDefault() {
+		this.contextRunner.withPropertyValues("petclinic.threads.mode=platform").run((context) -> {
+			assertThat(context).doesNotHaveBean(PinnedThreadMonitor.class);
+			assertThat(context).hasBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+		});
+	}
+
+	@Test
+	@DisabledIf("org.springframework.samples.petclinic.system.VirtualThreads#isSupported")
+	void virtualThreadsFailToStartWithoutJvmSupport() {
+		this.contextRunner.withPropertyValues("petclinic.threads.mode=virtual").run((context) -> {
+			assertThat(context).hasFailed();
+			assertThat(context.getStartupFailure()).hasRootCauseInstanceOf(IllegalStateException.class).getRootCause()
+					.hasMessageContaining("Java 21");
+		});
+	}
+
+	@Test
+	@EnabledIf("org.springframework.samples.petclinic.system.VirtualThreads#isSupported")
+	void virtualThreadsRunAsyncTasks() {
+		this.contextRunner.withPropertyValues("petclinic.threads.mode=virtual").run((context) -> {
+			assertThat(context).hasSingleBean(PinnedThreadMonitor.class);
+			AsyncTaskExecutor executor = context.getBean(
+					TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncTaskExecutor.class);
+			CompletableFuture<String> name = new CompletableFuture<>();
+			executor.execute(() -> name.complete(Thread.currentThread().toString()));
+			assertThat(name.get(5, TimeUnit.SECONDS)).startsWith("VirtualThread").contains("task-0");
+		});
+	}
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2012-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.samples.petclinic.vet;
+
+import java.util.Collection;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the caching of {@link VetRepository} and the
+ * {@link VetCacheRefresher}. Saves are committed, as caches are only evicted on commit,
+ * and reverted by each test.
+ */
+@SpringBootTest
+class VetCacheTests {
+
+	@Autowired
+	private VetRepository vets;
+
+	@Autowired
+	private VetCacheRefresher refresher;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void shouldEvictOnSaveOnceCommitted() {
+		Collection<Vet> cached = this.vets.findAll();
+		assertThat(this.vets.findAll()).isSameAs(cached);
+		Slice<Vet> page = this.vets.findSlice(PageRequest.of(0, VetController.PAGE_SIZE));
+
+		try {
+			inTransaction(() -> {
+				rename(1, "Jim");
+				assertThat(this.vets.findAll()).isSameAs(cached);
+			});
+			assertThat(this.vets.findAll()).isNotSameAs(cached).extracting(Vet::getFirstName).contains("Jim");
+			assertThat(this.vets.findSlice(PageRequest.of(0, VetController.PAGE_SIZE))).isNotSameAs(page);
+		}
+		finally {
+			inTransaction(() -> rename(1, "James"));
+		}
+	}
+
+	@Test
+	void shouldNotCacheRolledBackChanges() {
+		this.cacheManager.getCache("vets").clear();
+		TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+		transaction.executeWithoutResult((status) -> {
+			rename(1, "Jim");
+			assertThat(this.vets.findAll()).extracting(Vet::getFirstName).contains("Jim");
+			status.setRollbackOnly();
+		});
+		assertThat(this.vets.findAll()).extracting(Vet::getFirstName).contains("James").doesNotContain("Jim");
+	}
+
+	@Test
+	void shouldRefreshAhead() {
+		Collection<Vet> cached = this.vets.findAll();
+		Slice<Vet> lastPage = this.vets.findSlice(PageRequest.of(1, VetController.PAGE_SIZE));
+		Slice<Vet> firstPage = this.vets.findAll(PageRequest.of(0, VetController.PAGE_SIZE));
+
+		this.refresher.refresh();
+
+		Collection<Vet> refreshed = this.vets.findAll();
+		assertThat(refreshed).isNotSameAs(cached).hasSameSizeAs(cached);
+		assertThat(this.vets.findAll()).isSameAs(refreshed);
+		assertThat(this.vets.findSlice(PageRequest.of(1, VetController.PAGE_SIZE))).isNotSameAs(lastPage);
+		assertThat(this.vets.findAll(PageRequest.of(0, VetController.PAGE_SIZE))).isNotSameAs(firstPage);
+	}
+
+	private void rename(int id, String firstName) {
+		Vet vet = this.vets.findById(id);
+		vet.setFirstName(firstName);
+		this.vets.save(vet);
+	}
+
+	private void inTransaction(Runnable action) {
+		new TransactionTemplate(this.transactionManager).executeWithoutResult((status) -> action.run());
+	}
+
+}
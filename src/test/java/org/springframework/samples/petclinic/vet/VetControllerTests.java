@@ -24,12 +24,18 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.system.PaginationCounter;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.function.LongSupplier;
+
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -47,6 +53,9 @@ class VetControllerTests {
 	@MockBean
 	private VetRepository vets;
 
+	@MockBean
+	private PaginationCounter counter;
+
 	private Vet james;
 
 	private Vet helen;
@@ -67,6 +76,9 @@ class VetControllerTests {
 		helen.addSpecialty(radiology);
 		given(this.vets.findAll()).willReturn(Lists.newArrayList(james, helen));
 		given(this.vets.findAll(any(Pageable.class))).willReturn(new PageImpl<Vet>(Lists.newArrayList(james, helen)));
+		given(this.vets.findSlice(any(Pageable.class)))
+				.willReturn(new SliceImpl<Vet>(Lists.newArrayList(james, helen)));
+		given(this.vets.count()).willReturn(2L);
 
 	}
 
@@ -78,6 +90,22 @@ class VetControllerTests {
 
 	}
 
+	@Test
+	void testShowVetListHtmlWithExactCount() throws Exception {
+		given(this.counter.count(anyString(), any())).willAnswer(inv -> inv.<LongSupplier>getArgument(1).getAsLong());
+		mockMvc.perform(get("/vets.html?page=1")).andExpect(status().isOk())
+				.andExpect(model().attribute("totalItems", 2L)).andExpect(model().attribute("totalPages", 1))
+				.andExpect(model().attribute("hasNext", false)).andExpect(view().name("vets/vetList"));
+	}
+
+	@Test
+	void testShowVetListHtmlWithoutCount() throws Exception {
+		given(this.counter.count(anyString(), any())).willReturn(null);
+		mockMvc.perform(get("/vets.html?page=1")).andExpect(status().isOk())
+				.andExpect(model().attribute("totalItems", nullValue()))
+				.andExpect(model().attribute("totalPages", nullValue())).andExpect(view().name("vets/vetList"));
+	}
+
 	@Test
 	void testShowResourcesVetList() throws Exception {
 		ResultActions actions = mockMvc.perform(get("/vets").accept(MediaType.APPLICATION_JSON))
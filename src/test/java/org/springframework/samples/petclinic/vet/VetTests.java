@@ -37,4 +37,21 @@ class VetTests {
 		assertThat(other.getId()).isEqualTo(vet.getId());
 	}
 
+	@Test
+	void testSpecialtiesKeptSortedByName() {
+		Vet vet = new Vet();
+		vet.addSpecialty(specialty(1, "surgery"));
+		vet.addSpecialty(specialty(2, "Dentistry"));
+		vet.addSpecialty(specialty(3, "radiology"));
+		assertThat(vet.getSpecialties()).extracting(Specialty::getName).containsExactly("Dentistry", "radiology",
+				"surgery");
+	}
+
+	private Specialty specialty(int id, String name) {
+		Specialty specialty = new Specialty();
+		specialty.setId(id);
+		specialty.setName(name);
+		return specialty;
+	}
+
 }